@@ -0,0 +1,127 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.kirksc1.bootops.github.repository;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.web.util.DefaultUriBuilderFactory;
+import org.springframework.web.util.UriBuilderFactory;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the allocation and time of building request URIs and bodies the way the GitHubUserRepositoryService
+ * used to, by concatenating and expanding paths and letting the WebClient's Jackson encoder serialize each body,
+ * with the cached URIs and pre-built writer it uses now.  Both body benchmarks serialize the same changed settings
+ * into a DataBuffer, as the WebClient sends them.  Run with ./gradlew jmh, which reports gc.alloc.rate.norm, the
+ * bytes allocated per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class GitHubRequestBenchmark {
+
+    private static final String BASE_URL = "https://api.github.com";
+    private static final int REPOSITORIES = 1024;
+
+    private final String[] owners = new String[REPOSITORIES];
+    private final String[] names = new String[REPOSITORIES];
+    @SuppressWarnings("unchecked")
+    private final Map<String, Object>[] settings = new Map[REPOSITORIES];
+
+    private final Jackson2JsonEncoder encoder = new Jackson2JsonEncoder();
+    private final DefaultDataBufferFactory bufferFactory = DefaultDataBufferFactory.sharedInstance;
+    private final UriBuilderFactory uriBuilderFactory = new DefaultUriBuilderFactory(BASE_URL);
+    private final GitHubRepositoryUris uris = new GitHubRepositoryUris(BASE_URL, REPOSITORIES);
+    private int next;
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < REPOSITORIES; i++) {
+            owners[i] = "owner-" + (i % 16);
+            names[i] = "repository-" + i;
+
+            GitHubUserRepository repository = new GitHubUserRepository();
+            repository.setUser(owners[i]);
+            repository.setName(names[i]);
+            repository.setDescription("Repository number " + i);
+            repository.setPrivate(i % 2 == 0);
+            repository.setTopics(Arrays.asList("boot-ops", "benchmark"));
+            repository.setDefaultBranch("main");
+            repository.setDeleteBranchOnMerge(true);
+
+            GitHubUserRepository current = new GitHubUserRepository();
+            current.setDescription("Repository");
+            current.setPrivate(i % 2 == 0);
+            current.setTopics(Arrays.asList("benchmark", "boot-ops"));
+            current.setDefaultBranch("main");
+            current.setDeleteBranchOnMerge(true);
+            settings[i] = GitHubRepositoryChanges.between(repository, current).getSettings();
+
+            uris.of(owners[i], names[i]);
+        }
+    }
+
+    @Benchmark
+    public URI concatenatedUri() {
+        int i = nextIndex();
+        return uriBuilderFactory.expand("/repos/" + owners[i] + "/" + names[i]);
+    }
+
+    @Benchmark
+    public URI cachedUri() {
+        int i = nextIndex();
+        return uris.of(owners[i], names[i]).repository();
+    }
+
+    /**
+     * The previous path: bodyValue(settings) resolves the body type and has the Jackson encoder look up a writer
+     * and serialize the settings for every request.
+     */
+    @Benchmark
+    public DataBuffer encoderSettingsBody() {
+        Map<String, Object> body = settings[nextIndex()];
+        return encoder.encodeValue(body, bufferFactory, ResolvableType.forInstance(body),
+                MediaType.APPLICATION_JSON, Collections.emptyMap());
+    }
+
+    /**
+     * The current path: the settings are serialized with the pre-built writer and bodyValue(bytes) wraps them.
+     */
+    @Benchmark
+    public DataBuffer writerSettingsBody() {
+        return bufferFactory.wrap(GitHubUserRepositoryService.toJson(settings[nextIndex()]));
+    }
+
+    private int nextIndex() {
+        next = (next + 1) & (REPOSITORIES - 1);
+        return next;
+    }
+}
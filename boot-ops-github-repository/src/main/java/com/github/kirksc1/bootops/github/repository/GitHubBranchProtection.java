@@ -0,0 +1,170 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.kirksc1.bootops.github.repository;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * GitHubBranchProtection describes the protection of a repository's default branch.  GitHub replaces the whole
+ * protection on each update, so settings left unset are turned off.  The push restrictions are not managed, so
+ * the restrictions currently applied in GitHub are kept on each update.
+ */
+@Getter
+@Setter
+public class GitHubBranchProtection {
+
+    /**
+     * The number of approving reviews required before merging, when null no reviews are required.
+     */
+    private Integer requiredApprovingReviewCount;
+    private Boolean dismissStaleReviews;
+    private Boolean requireCodeOwnerReviews;
+
+    /**
+     * The status checks that must pass before merging, when null no status checks are required.
+     */
+    private List<String> requiredStatusChecks;
+    private Boolean strictStatusChecks;
+
+    private Boolean enforceAdmins;
+    private Boolean allowForcePushes;
+    private Boolean allowDeletions;
+
+    /**
+     * The push restrictions read from GitHub, in request body form, when null pushes are not restricted.
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private Map<String, Object> restrictions;
+
+    /**
+     * Build the body of the GitHub branch protection update request, without push restrictions.
+     * @return The request body.
+     */
+    Map<String, Object> toRequestBody() {
+        return toRequestBody(null);
+    }
+
+    /**
+     * Build the body of the GitHub branch protection update request, keeping the push restrictions of the
+     * current protection.  The body is normalized, so two protections are equivalent when their request
+     * bodies are equal.
+     * @param current The current protection, null when the branch is not protected.
+     * @return The request body.
+     */
+    Map<String, Object> toRequestBody(GitHubBranchProtection current) {
+        Map<String, Object> body = new LinkedHashMap<>();
+
+        Map<String, Object> statusChecks = null;
+        if (requiredStatusChecks != null) {
+            List<String> contexts = new ArrayList<>(requiredStatusChecks);
+            Collections.sort(contexts);
+
+            statusChecks = new LinkedHashMap<>();
+            statusChecks.put("strict", isTrue(strictStatusChecks));
+            statusChecks.put("contexts", contexts);
+        }
+        body.put("required_status_checks", statusChecks);
+
+        body.put("enforce_admins", isTrue(enforceAdmins));
+
+        Map<String, Object> reviews = null;
+        if (requiredApprovingReviewCount != null) {
+            reviews = new LinkedHashMap<>();
+            reviews.put("dismiss_stale_reviews", isTrue(dismissStaleReviews));
+            reviews.put("require_code_owner_reviews", isTrue(requireCodeOwnerReviews));
+            reviews.put("required_approving_review_count", requiredApprovingReviewCount);
+        }
+        body.put("required_pull_request_reviews", reviews);
+
+        body.put("restrictions", current == null ? null : current.restrictions);
+        body.put("allow_force_pushes", isTrue(allowForcePushes));
+        body.put("allow_deletions", isTrue(allowDeletions));
+        return body;
+    }
+
+    /**
+     * Determine whether the provided protection, as currently applied in GitHub, already matches this protection.
+     * @param current The current protection, null when the branch is not protected.
+     * @return True if no update is required, otherwise false.
+     */
+    boolean isSatisfiedBy(GitHubBranchProtection current) {
+        return current != null && toRequestBody(current).equals(current.toRequestBody(current));
+    }
+
+    /**
+     * Create a protection from the GitHub branch protection response.
+     * @param response The GitHub branch protection response.
+     * @return The protection described by the response.
+     */
+    static GitHubBranchProtection fromResponse(JsonNode response) {
+        GitHubBranchProtection protection = new GitHubBranchProtection();
+
+        JsonNode statusChecks = response.path("required_status_checks");
+        if (statusChecks.isObject()) {
+            List<String> contexts = new ArrayList<>();
+            statusChecks.path("contexts").forEach(context -> contexts.add(context.asText()));
+            protection.setRequiredStatusChecks(contexts);
+            protection.setStrictStatusChecks(statusChecks.path("strict").asBoolean());
+        }
+
+        JsonNode reviews = response.path("required_pull_request_reviews");
+        if (reviews.isObject()) {
+            protection.setRequiredApprovingReviewCount(reviews.path("required_approving_review_count").asInt());
+            protection.setDismissStaleReviews(reviews.path("dismiss_stale_reviews").asBoolean());
+            protection.setRequireCodeOwnerReviews(reviews.path("require_code_owner_reviews").asBoolean());
+        }
+
+        protection.setEnforceAdmins(response.path("enforce_admins").path("enabled").asBoolean());
+        protection.setAllowForcePushes(response.path("allow_force_pushes").path("enabled").asBoolean());
+        protection.setAllowDeletions(response.path("allow_deletions").path("enabled").asBoolean());
+
+        JsonNode restrictions = response.path("restrictions");
+        if (restrictions.isObject()) {
+            protection.restrictions = new LinkedHashMap<>();
+            protection.restrictions.put("users", namesOf(restrictions.path("users"), "login"));
+            protection.restrictions.put("teams", namesOf(restrictions.path("teams"), "slug"));
+            protection.restrictions.put("apps", namesOf(restrictions.path("apps"), "slug"));
+        }
+        return protection;
+    }
+
+    /**
+     * Collect the sorted names of the users, teams or apps of a push restriction response.
+     * @param actors The users, teams or apps of the response.
+     * @param field The field holding the name of each.
+     * @return The names.
+     */
+    private static List<String> namesOf(JsonNode actors, String field) {
+        List<String> names = new ArrayList<>();
+        actors.forEach(actor -> names.add(actor.path(field).asText()));
+        Collections.sort(names);
+        return names;
+    }
+
+    private static boolean isTrue(Boolean value) {
+        return Boolean.TRUE.equals(value);
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.kirksc1.bootops.github.repository;
+
+import lombok.Getter;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.util.Assert;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * GitHubConvergeEndpoint is an actuator endpoint exposing the live state of GitHub repository converges: the
+ * converges in progress, the depth of each priority lane, the rate limit budget, the request URI cache and the
+ * slowest recent converges.  Reading it only takes snapshots of counters and never waits on the scheduler lock,
+ * so it is cheap to poll while converging.  Converging can be paused and resumed, and the URI cache flushed, with
+ * a write to /actuator/githubconverge/{action}.
+ */
+@Endpoint(id = "githubconverge")
+public class GitHubConvergeEndpoint {
+
+    /**
+     * The pause action, which stops new requests being sent to GitHub.
+     */
+    public static final String PAUSE = "pause";
+
+    /**
+     * The resume action, which resumes sending requests to GitHub after a pause.
+     */
+    public static final String RESUME = "resume";
+
+    /**
+     * The flush action, which clears the request URI cache.
+     */
+    public static final String FLUSH = "flush";
+
+    private static final int SLOWEST_LIMIT = 20;
+
+    private final GitHubUserRepositoryService repositoryService;
+    private final GitHubRequestScheduler scheduler;
+    private final GitHubRepositoryUris uris;
+    private final GitHubConvergeReport report;
+
+    /**
+     * Construct a new instance.
+     * @param repositoryService The user repository service.
+     * @param scheduler The request scheduler.
+     * @param uris The request URIs.
+     * @param report The converge report.
+     */
+    public GitHubConvergeEndpoint(GitHubUserRepositoryService repositoryService, GitHubRequestScheduler scheduler,
+                                  GitHubRepositoryUris uris, GitHubConvergeReport report) {
+        Assert.notNull(repositoryService, "The GitHubUserRepositoryService provided was null");
+        Assert.notNull(scheduler, "The GitHubRequestScheduler provided was null");
+        Assert.notNull(uris, "The GitHubRepositoryUris provided was null");
+        Assert.notNull(report, "The GitHubConvergeReport provided was null");
+
+        this.repositoryService = repositoryService;
+        this.scheduler = scheduler;
+        this.uris = uris;
+        this.report = report;
+    }
+
+    /**
+     * Retrieve the live state of the GitHub repository converges.
+     * @return The converge state.
+     */
+    @ReadOperation
+    public ConvergeStateDescriptor state() {
+        Map<String, LaneDescriptor> lanes = new LinkedHashMap<>();
+        for (GitHubRequestScheduler.Priority priority : GitHubRequestScheduler.Priority.values()) {
+            lanes.put(priority.tag(), new LaneDescriptor(scheduler.getQueueDepth(priority), scheduler.getActive(priority)));
+        }
+        return new ConvergeStateDescriptor(repositoryService.getInFlight(), lanes, new RateLimitDescriptor(scheduler),
+                new UriCacheDescriptor(uris), report.getSlowestRecent(SLOWEST_LIMIT));
+    }
+
+    /**
+     * Apply an administrative action: pause, resume or flush.
+     * @param action The action to apply.
+     */
+    @WriteOperation
+    public void action(@Selector String action) {
+        switch (action) {
+            case PAUSE:
+                scheduler.pause();
+                break;
+            case RESUME:
+                scheduler.resume();
+                break;
+            case FLUSH:
+                uris.clear();
+                break;
+            default:
+                throw new InvalidEndpointRequestException("Unknown action " + action,
+                        "The action must be one of " + PAUSE + ", " + RESUME + " or " + FLUSH);
+        }
+    }
+
+    /**
+     * ConvergeStateDescriptor is the live state of the GitHub repository converges.
+     */
+    @Getter
+    public static class ConvergeStateDescriptor {
+        private final List<GitHubConvergeInFlight> inFlight;
+        private final Map<String, LaneDescriptor> lanes;
+        private final RateLimitDescriptor rateLimit;
+        private final UriCacheDescriptor uriCache;
+
+        /**
+         * The slowest of the most recently completed converges, slowest first.
+         */
+        private final List<GitHubRepositoryConvergeRecord> slowest;
+
+        ConvergeStateDescriptor(List<GitHubConvergeInFlight> inFlight, Map<String, LaneDescriptor> lanes,
+                                RateLimitDescriptor rateLimit, UriCacheDescriptor uriCache,
+                                List<GitHubRepositoryConvergeRecord> slowest) {
+            this.inFlight = inFlight;
+            this.lanes = lanes;
+            this.rateLimit = rateLimit;
+            this.uriCache = uriCache;
+            this.slowest = slowest;
+        }
+    }
+
+    /**
+     * LaneDescriptor is the number of requests waiting and being sent in a priority lane.
+     */
+    @Getter
+    public static class LaneDescriptor {
+        private final int queued;
+        private final int active;
+
+        LaneDescriptor(int queued, int active) {
+            this.queued = queued;
+            this.active = active;
+        }
+    }
+
+    /**
+     * RateLimitDescriptor is the rate limit budget, as last reported by GitHub.  The limit and remaining budget
+     * are -1 until GitHub has reported them.
+     */
+    @Getter
+    public static class RateLimitDescriptor {
+        private final long limit;
+        private final long remaining;
+        private final long resetAtMillis;
+        private final long pausedUntilMillis;
+        private final boolean paused;
+
+        RateLimitDescriptor(GitHubRequestScheduler scheduler) {
+            this.limit = scheduler.getRateLimit();
+            this.remaining = scheduler.getRateLimitRemaining();
+            this.resetAtMillis = scheduler.getRateLimitResetMillis();
+            this.pausedUntilMillis = scheduler.getPausedUntilMillis();
+            this.paused = scheduler.isPaused();
+        }
+    }
+
+    /**
+     * UriCacheDescriptor is the size and effectiveness of the request URI cache.
+     */
+    @Getter
+    public static class UriCacheDescriptor {
+        private final int size;
+        private final long hits;
+        private final long misses;
+        private final double hitRatio;
+
+        UriCacheDescriptor(GitHubRepositoryUris uris) {
+            this.size = uris.getSize();
+            this.hits = uris.getHits();
+            this.misses = uris.getMisses();
+            this.hitRatio = hits + misses == 0 ? 0.0 : (double) hits / (hits + misses);
+        }
+    }
+}
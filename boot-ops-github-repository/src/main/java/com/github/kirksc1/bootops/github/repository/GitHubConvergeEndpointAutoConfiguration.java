@@ -0,0 +1,53 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.kirksc1.bootops.github.repository;
+
+import org.springframework.boot.actuate.autoconfigure.endpoint.condition.ConditionalOnAvailableEndpoint;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * GitHubConvergeEndpointAutoConfiguration is the Spring Boot Configuration class for the GitHub converge actuator
+ * endpoint.  It only applies when Spring Boot Actuator is on the classpath, the GitHub repository service is
+ * available and the githubconverge endpoint is enabled and exposed.
+ */
+@AutoConfiguration(after = GitHubRepositoryAutoConfiguration.class)
+@ConditionalOnClass(Endpoint.class)
+@ConditionalOnAvailableEndpoint(endpoint = GitHubConvergeEndpoint.class)
+public class GitHubConvergeEndpointAutoConfiguration {
+
+    /**
+     * Actuator endpoint exposing the live state of GitHub repository converges.
+     * @param repositoryService The user repository service.
+     * @param scheduler The request scheduler.
+     * @param uris The request URIs.
+     * @param report The converge report.
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnBean({GitHubUserRepositoryService.class, GitHubRequestScheduler.class, GitHubRepositoryUris.class,
+            GitHubConvergeReport.class})
+    public GitHubConvergeEndpoint gitHubConvergeEndpoint(GitHubUserRepositoryService repositoryService,
+                                                         GitHubRequestScheduler scheduler,
+                                                         GitHubRepositoryUris uris,
+                                                         GitHubConvergeReport report) {
+        return new GitHubConvergeEndpoint(repositoryService, scheduler, uris, report);
+    }
+}
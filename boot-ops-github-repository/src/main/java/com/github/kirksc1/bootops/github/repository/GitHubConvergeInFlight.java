@@ -0,0 +1,40 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.kirksc1.bootops.github.repository;
+
+import lombok.Getter;
+
+/**
+ * GitHubConvergeInFlight describes a repository converge, archive or delete that is still in progress.
+ */
+@Getter
+public class GitHubConvergeInFlight {
+
+    /**
+     * The full name of the repository, as owner/name.
+     */
+    private final String repository;
+    private final GitHubRequestScheduler.Priority lane;
+    private final long elapsedMillis;
+    private final int apiCalls;
+
+    GitHubConvergeInFlight(String repository, GitHubRequestScheduler.Priority lane, long elapsedMillis, int apiCalls) {
+        this.repository = repository;
+        this.lane = lane;
+        this.elapsedMillis = elapsedMillis;
+        this.apiCalls = apiCalls;
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.kirksc1.bootops.github.repository;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.Assert;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * GitHubConvergeReport collects the outcome of each repository converge.  Every record is streamed as a line of
+ * NDJSON, either to the Writer provided or, when no Writer is provided, to this class's logger at DEBUG level.
+ * Only counters, fixed size histograms and a fixed size ring buffer of the most recent records are retained, so
+ * memory use does not grow with the number of repositories.
+ * Closing the report emits a final summary line.
+ */
+@Slf4j
+public class GitHubConvergeReport implements Closeable {
+
+    private static final ObjectWriter JSON_WRITER = new ObjectMapper().writer();
+    private static final int RECENT_SIZE = 256;
+
+    private final Writer writer;
+
+    private final AtomicLong repositories = new AtomicLong();
+    private final AtomicLong apiCalls = new AtomicLong();
+    private final AtomicLongArray actions = new AtomicLongArray(GitHubRepositoryConvergeRecord.Action.values().length);
+    private final LatencyHistogram total = new LatencyHistogram();
+    private final LatencyHistogram queue = new LatencyHistogram();
+    private final LatencyHistogram lookup = new LatencyHistogram();
+    private final LatencyHistogram write = new LatencyHistogram();
+    private final AtomicReferenceArray<GitHubRepositoryConvergeRecord> recent = new AtomicReferenceArray<>(RECENT_SIZE);
+    private final AtomicLong recentIndex = new AtomicLong();
+
+    /**
+     * Construct a new instance that streams records to the logger.
+     */
+    public GitHubConvergeReport() {
+        this.writer = null;
+    }
+
+    /**
+     * Construct a new instance that streams records to the provided Writer.
+     * @param writer The Writer to stream NDJSON records to.
+     */
+    public GitHubConvergeReport(Writer writer) {
+        Assert.notNull(writer, "The Writer provided was null");
+
+        this.writer = writer;
+    }
+
+    /**
+     * Add the outcome of a repository converge to the report.  A listing record only adds its API calls and
+     * action, so the repository count, latencies and recent records describe repository converges alone.
+     * @param record The repository converge record.
+     */
+    public void record(GitHubRepositoryConvergeRecord record) {
+        apiCalls.addAndGet(record.getApiCalls());
+        actions.incrementAndGet(record.getAction().ordinal());
+        if (record.getAction() != GitHubRepositoryConvergeRecord.Action.LISTED) {
+            recordRepository(record);
+        }
+
+        if (writer != null || log.isDebugEnabled()) {
+            emit(record);
+        }
+    }
+
+    private void recordRepository(GitHubRepositoryConvergeRecord record) {
+        repositories.incrementAndGet();
+        total.record(record.getTotalNanos());
+        queue.record(record.getQueueNanos());
+        lookup.record(record.getLookupNanos());
+        write.record(record.getWriteNanos());
+        recent.lazySet((int) (recentIndex.getAndIncrement() & (RECENT_SIZE - 1)), record);
+    }
+
+    /**
+     * Summarize the records added to the report so far.
+     * @return The report summary.
+     */
+    public GitHubConvergeSummary summary() {
+        Map<GitHubRepositoryConvergeRecord.Action, Long> actionCounts = new EnumMap<>(GitHubRepositoryConvergeRecord.Action.class);
+        for (GitHubRepositoryConvergeRecord.Action action : GitHubRepositoryConvergeRecord.Action.values()) {
+            actionCounts.put(action, actions.get(action.ordinal()));
+        }
+        return new GitHubConvergeSummary(repositories.get(), apiCalls.get(), actionCounts,
+                new GitHubConvergeSummary.Percentiles(total),
+                new GitHubConvergeSummary.Percentiles(queue),
+                new GitHubConvergeSummary.Percentiles(lookup),
+                new GitHubConvergeSummary.Percentiles(write));
+    }
+
+    /**
+     * Retrieve the slowest of the most recent records, which are kept in a fixed size ring buffer.
+     * @param limit The maximum number of records to retrieve.
+     * @return The records, slowest first.
+     */
+    public List<GitHubRepositoryConvergeRecord> getSlowestRecent(int limit) {
+        List<GitHubRepositoryConvergeRecord> records = new ArrayList<>(RECENT_SIZE);
+        for (int i = 0; i < RECENT_SIZE; i++) {
+            GitHubRepositoryConvergeRecord record = recent.get(i);
+            if (record != null) {
+                records.add(record);
+            }
+        }
+        records.sort(Comparator.comparingLong(GitHubRepositoryConvergeRecord::getTotalNanos).reversed());
+        return records.subList(0, Math.min(limit, records.size()));
+    }
+
+    /**
+     * Emit the summary line and close the underlying Writer, if any.
+     * @throws IOException if the Writer could not be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        if (repositories.get() > 0) {
+            GitHubConvergeSummary summary = summary();
+            log.info("GitHub converge summary: {}", toJson(summary));
+            if (writer != null) {
+                emit(summary);
+            }
+        }
+        if (writer != null) {
+            writer.close();
+        }
+    }
+
+    private void emit(Object value) {
+        String line = toJson(value);
+        if (writer == null) {
+            log.debug(line);
+            return;
+        }
+        try {
+            synchronized (writer) {
+                writer.write(line);
+                writer.write('\n');
+                writer.flush();
+            }
+        } catch (IOException e) {
+            log.warn("Unable to write the GitHub converge report", e);
+        }
+    }
+
+    private static String toJson(Object value) {
+        try {
+            return JSON_WRITER.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to serialize the GitHub converge report", e);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.kirksc1.bootops.github.repository;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * GitHubConvergeSummary is a point in time summary of a GitHubConvergeReport, including latency
+ * percentiles for each phase of the converge.
+ */
+@Getter
+@JsonPropertyOrder({"type", "repositories", "apiCalls", "actions", "total", "queue", "lookup", "write"})
+public class GitHubConvergeSummary {
+
+    private final String type = "summary";
+    private final long repositories;
+    private final long apiCalls;
+    private final Map<GitHubRepositoryConvergeRecord.Action, Long> actions;
+    private final Percentiles total;
+    private final Percentiles queue;
+    private final Percentiles lookup;
+    private final Percentiles write;
+
+    GitHubConvergeSummary(long repositories, long apiCalls, Map<GitHubRepositoryConvergeRecord.Action, Long> actions,
+                          Percentiles total, Percentiles queue, Percentiles lookup, Percentiles write) {
+        this.repositories = repositories;
+        this.apiCalls = apiCalls;
+        this.actions = Collections.unmodifiableMap(actions);
+        this.total = total;
+        this.queue = queue;
+        this.lookup = lookup;
+        this.write = write;
+    }
+
+    /**
+     * Percentiles contains the latency percentiles, in nanoseconds, of a single converge phase.
+     */
+    @Getter
+    @JsonPropertyOrder({"p50", "p95", "p99", "max"})
+    public static class Percentiles {
+        private final long p50;
+        private final long p95;
+        private final long p99;
+        private final long max;
+
+        Percentiles(LatencyHistogram histogram) {
+            this.p50 = histogram.getPercentile(0.50);
+            this.p95 = histogram.getPercentile(0.95);
+            this.p99 = histogram.getPercentile(0.99);
+            this.max = histogram.getMax();
+        }
+    }
+}
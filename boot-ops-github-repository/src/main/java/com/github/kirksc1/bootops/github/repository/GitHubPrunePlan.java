@@ -0,0 +1,80 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.kirksc1.bootops.github.repository;
+
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * GitHubPrunePlan is the dry-run of a prune: the orphaned repositories, owned by the authenticated user but absent
+ * from the desired repositories, and what would be done to each.  Nothing is changed in GitHub until the plan is
+ * executed by the GitHubRepositoryPruner that made it, and a plan can only be executed once.
+ */
+public class GitHubPrunePlan {
+
+    @Getter
+    private final GitHubRepositoryPruner.Mode mode;
+
+    /**
+     * The number of repositories listed for the authenticated user.
+     */
+    @Getter
+    private final long listed;
+
+    /**
+     * The repositories that executing the plan would archive or delete.
+     */
+    @Getter
+    private final List<GitHubUserRepository> orphans;
+
+    private final GitHubRepositoryPruner pruner;
+    private final AtomicBoolean executed = new AtomicBoolean();
+
+    GitHubPrunePlan(GitHubRepositoryPruner.Mode mode, long listed, List<GitHubUserRepository> orphans, GitHubRepositoryPruner pruner) {
+        this.mode = mode;
+        this.listed = listed;
+        this.orphans = Collections.unmodifiableList(orphans);
+        this.pruner = pruner;
+    }
+
+    /**
+     * Determine whether the plan has been executed.
+     * @return True if the plan has been executed, otherwise false.
+     */
+    public boolean isExecuted() {
+        return executed.get();
+    }
+
+    /**
+     * Determine whether the plan was made by the provided pruner.
+     * @param pruner The pruner.
+     * @return True if the plan was made by the pruner, otherwise false.
+     */
+    boolean isMadeBy(GitHubRepositoryPruner pruner) {
+        return this.pruner == pruner;
+    }
+
+    /**
+     * Mark the plan as executed.
+     * @return True if the plan had not been executed before, otherwise false.
+     */
+    boolean markExecuted() {
+        return executed.compareAndSet(false, true);
+    }
+}
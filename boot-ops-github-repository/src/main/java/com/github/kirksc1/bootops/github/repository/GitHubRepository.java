@@ -16,9 +16,12 @@
 
 package com.github.kirksc1.bootops.github.repository;
 
+import com.fasterxml.jackson.annotation.JsonAlias;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.util.List;
+
 /**
  * GitHubRepository is the repository structure shared between user repositories and organizational repositories.
  */
@@ -42,6 +45,50 @@ public abstract class GitHubRepository {
 
     private Boolean isPrivate;
 
+    @Getter
+    @Setter
+    private String visibility;
+
+    @Getter
+    @Setter
+    private List<String> topics;
+
+    @Getter
+    @Setter
+    @JsonAlias("default_branch")
+    private String defaultBranch;
+
+    @Getter
+    @Setter
+    @JsonAlias("allow_merge_commit")
+    private Boolean allowMergeCommit;
+
+    @Getter
+    @Setter
+    @JsonAlias("allow_squash_merge")
+    private Boolean allowSquashMerge;
+
+    @Getter
+    @Setter
+    @JsonAlias("allow_rebase_merge")
+    private Boolean allowRebaseMerge;
+
+    @Getter
+    @Setter
+    @JsonAlias("delete_branch_on_merge")
+    private Boolean deleteBranchOnMerge;
+
+    @Getter
+    @Setter
+    private Boolean archived;
+
+    /**
+     * The protection of the default branch, when null the protection is left unmanaged.
+     */
+    @Getter
+    @Setter
+    private GitHubBranchProtection branchProtection;
+
     /**
      * Retrieve the owner for the repository.
      * @return The repository owner.
@@ -17,23 +17,44 @@ package com.github.kirksc1.bootops.github.repository;
 
 import com.github.kirksc1.bootops.core.AttributeRetriever;
 import com.github.kirksc1.bootops.core.AttributeType;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
-import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.core.env.Environment;
 import org.springframework.http.HttpHeaders;
 import org.springframework.web.reactive.function.client.WebClient;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
 /**
  * GitHubRepositoryAutoConfiguration is the Spring Boot Configuration class for the GitHub Repository functionality.
+ * It can be switched off entirely with github.service.enabled=false, and every bean backs off when the application
+ * provides its own.  The GitHub WebClient is lazy so that its HTTP resources are only built on first use.  The
+ * request URIs are built from the base URL of the gitHubWebClient, whether configured here or by the application.
  */
-@Configuration
+@AutoConfiguration
+@ConditionalOnClass(WebClient.class)
+@ConditionalOnProperty(prefix = "github.service", name = "enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(GitHubServiceProperties.class)
 public class GitHubRepositoryAutoConfiguration {
 
     /**
      * AttributeType bean mapping to the GitHubUserRepository attribute.
      */
     @Bean
+    @ConditionalOnMissingBean(name = "gitHubUserRepositoryAttributeType")
     public AttributeType gitHubUserRepositoryAttributeType() {
         return new AttributeType(GitHubUserRepository.ATTRIBUTE_NAME, GitHubUserRepository.class);
     }
@@ -42,40 +63,113 @@ public class GitHubRepositoryAutoConfiguration {
      * AttributeRetriever for retrieving the GitHubUserRepository attribute from and Item.
      */
     @Bean
+    @ConditionalOnMissingBean(name = "gitHubUserRepositoryAttributeRetriever")
     public AttributeRetriever<GitHubUserRepository> gitHubUserRepositoryAttributeRetriever() {
         return new AttributeRetriever<>(GitHubUserRepository.ATTRIBUTE_NAME, GitHubUserRepository.class);
     }
 
     /**
-     * Bean containing details regarding the GitHub Service.
+     * Report of the outcome of each repository converge, streamed as NDJSON to the configured file or to the log.
+     * @param properties GitHub Service properties.
+     * @throws IOException if the report file could not be opened.
      */
     @Bean
-    public GitHubServiceProperties gitHubServiceProperties() {
-        return new GitHubServiceProperties();
+    @ConditionalOnMissingBean
+    public GitHubConvergeReport gitHubConvergeReport(GitHubServiceProperties properties) throws IOException {
+        String path = properties.getReport().getPath();
+        if (path == null) {
+            return new GitHubConvergeReport();
+        }
+        return new GitHubConvergeReport(Files.newBufferedWriter(Paths.get(path), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Scheduler pacing the requests sent to the GitHub service across priority lanes.
+     * @param properties GitHub Service properties.
+     * @param meterRegistry The application's MeterRegistry, if any, otherwise the global registry.
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public GitHubRequestScheduler gitHubRequestScheduler(GitHubServiceProperties properties, ObjectProvider<MeterRegistry> meterRegistry) {
+        return new GitHubRequestScheduler(properties.getScheduler(), meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
     }
 
     /**
      * A WebClient configured for use with GitHub Service.  Includes configuration of ACCEPT and AUTHORIZATION headers.
+     * The bean is lazy, so it is only built the first time a request is sent to GitHub.
      * @param properties GitHub Service properties.
      * @param environment The Spring environment for the application.
      */
     @Bean
+    @Lazy
+    @ConditionalOnMissingBean(name = "gitHubWebClient")
     public WebClient gitHubWebClient(GitHubServiceProperties properties, Environment environment) {
         WebClient webClient = WebClient.builder()
                 .baseUrl(properties.getBaseUrl())
-                .defaultHeader(HttpHeaders.ACCEPT, "application/vnd.github+json")
+                .defaultHeader(HttpHeaders.ACCEPT, properties.getAccept())
                 .defaultHeader(HttpHeaders.AUTHORIZATION, "Bearer " + environment.getProperty(properties.getTokenEnvironmentVariableName()))
                 .build();
 
         return webClient;
     }
 
+    /**
+     * Cache of the encoded request URIs of each repository, built from the base URL of the gitHubWebClient the
+     * first time a request is sent.
+     * @param webClient A lazy proxy to the GitHub WebClient.
+     * @param properties GitHub Service properties.
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public GitHubRepositoryUris gitHubRepositoryUris(@Lazy @Qualifier("gitHubWebClient") WebClient webClient,
+                                                     GitHubServiceProperties properties) {
+        return GitHubRepositoryUris.forWebClient(webClient, properties.getUriCacheSize());
+    }
+
     /**
      * Application Service for interacting with GitHub user repositories.
-     * @param webClient The GitHub WebClient.
+     * @param webClient A lazy proxy to the GitHub WebClient.
+     * @param report The converge report.
+     * @param observationRegistry The application's ObservationRegistry, if any.
+     * @param scheduler The request scheduler.
+     * @param uris The request URIs.
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public GitHubUserRepositoryService gitHubUserRepositoryService(@Lazy @Qualifier("gitHubWebClient") WebClient webClient,
+                                                                   GitHubConvergeReport report,
+                                                                   ObjectProvider<ObservationRegistry> observationRegistry,
+                                                                   GitHubRequestScheduler scheduler,
+                                                                   GitHubRepositoryUris uris) {
+        return new GitHubUserRepositoryService(webClient, report, observationRegistry.getIfAvailable(() -> ObservationRegistry.NOOP),
+                scheduler, uris);
+    }
+
+    /**
+     * Pruner of the repositories that are no longer desired, only available when github.service.prune.enabled=true.
+     * @param repositoryService The user repository service.
+     * @param properties GitHub Service properties.
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "github.service.prune", name = "enabled", havingValue = "true")
+    public GitHubRepositoryPruner gitHubRepositoryPruner(GitHubUserRepositoryService repositoryService, GitHubServiceProperties properties) {
+        return new GitHubRepositoryPruner(repositoryService, properties.getPrune());
+    }
+
+    /**
+     * Listener that converges the GitHubUserRepository attribute of each Item as its converge is initiated.
+     * @param repositoryService The user repository service.
+     * @param retriever The GitHubUserRepository attribute retriever.
+     * @param observationRegistry The application's ObservationRegistry, if any.
      */
     @Bean
-    public GitHubUserRepositoryService gitHubUserRepositoryService(@Qualifier("gitHubWebClient") WebClient webClient) {
-        return new GitHubUserRepositoryService(webClient);
+    @ConditionalOnMissingBean
+    public GitHubUserRepositoryConvergeInitiatedEventListener gitHubUserRepositoryConvergeInitiatedEventListener(
+            GitHubUserRepositoryService repositoryService,
+            @Qualifier("gitHubUserRepositoryAttributeRetriever") AttributeRetriever<GitHubUserRepository> retriever,
+            ObjectProvider<ObservationRegistry> observationRegistry) {
+        return new GitHubUserRepositoryConvergeInitiatedEventListener(repositoryService, retriever,
+                observationRegistry.getIfAvailable(() -> ObservationRegistry.NOOP));
     }
 }
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.kirksc1.bootops.github.repository;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+
+/**
+ * GitHubRepositoryChanges is the minimal set of changes needed to bring a repository in the GitHub service in line
+ * with its desired state.  Settings accepted by the repository update endpoint are combined into a single request
+ * body, while topics are only included when they differ.  Desired settings that are null are left unmanaged.
+ */
+@Getter
+class GitHubRepositoryChanges {
+
+    private final Map<String, Object> settings;
+    private final List<String> topics;
+
+    private GitHubRepositoryChanges(Map<String, Object> settings, List<String> topics) {
+        this.settings = settings;
+        this.topics = topics;
+    }
+
+    /**
+     * Determine the changes between the desired and current state of a repository.
+     * @param desired The desired state of the repository.
+     * @param current The current state of the repository in the GitHub service.
+     * @return The changes required.
+     */
+    static GitHubRepositoryChanges between(GitHubRepository desired, GitHubRepository current) {
+        Map<String, Object> settings = new LinkedHashMap<>();
+        putIfChanged(settings, "description", desired.getDescription(), current.getDescription());
+        putIfChanged(settings, "private", desired.isPrivate(), current.isPrivate());
+        putIfChanged(settings, "visibility", desired.getVisibility(), current.getVisibility());
+        putIfChanged(settings, "default_branch", desired.getDefaultBranch(), current.getDefaultBranch());
+        putIfChanged(settings, "allow_merge_commit", desired.getAllowMergeCommit(), current.getAllowMergeCommit());
+        putIfChanged(settings, "allow_squash_merge", desired.getAllowSquashMerge(), current.getAllowSquashMerge());
+        putIfChanged(settings, "allow_rebase_merge", desired.getAllowRebaseMerge(), current.getAllowRebaseMerge());
+        putIfChanged(settings, "delete_branch_on_merge", desired.getDeleteBranchOnMerge(), current.getDeleteBranchOnMerge());
+        putIfChanged(settings, "archived", desired.getArchived(), current.getArchived());
+
+        List<String> topics = null;
+        if (desired.getTopics() != null && !normalize(desired.getTopics()).equals(normalize(current.getTopics()))) {
+            topics = new ArrayList<>(normalize(desired.getTopics()));
+        }
+
+        return new GitHubRepositoryChanges(settings, topics);
+    }
+
+    /**
+     * Build the body of the GitHub repository creation request from the settings that endpoint accepts.  Settings
+     * it does not accept are applied as changes once the repository has been created.
+     * @param desired The desired state of the repository.
+     * @return The request body.
+     */
+    static Map<String, Object> creationOf(GitHubRepository desired) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("name", desired.getName());
+        putIfPresent(body, "description", desired.getDescription());
+        putIfPresent(body, "private", desired.isPrivate());
+        putIfPresent(body, "allow_merge_commit", desired.getAllowMergeCommit());
+        putIfPresent(body, "allow_squash_merge", desired.getAllowSquashMerge());
+        putIfPresent(body, "allow_rebase_merge", desired.getAllowRebaseMerge());
+        putIfPresent(body, "delete_branch_on_merge", desired.getDeleteBranchOnMerge());
+        return body;
+    }
+
+    /**
+     * Determine whether the repository update request is needed.
+     * @return True if any repository setting differs, otherwise false.
+     */
+    boolean hasSettings() {
+        return !settings.isEmpty();
+    }
+
+    /**
+     * Determine whether the topics update request is needed.
+     * @return True if the topics differ, otherwise false.
+     */
+    boolean hasTopics() {
+        return topics != null;
+    }
+
+    /**
+     * Determine whether the repository update un-archives the repository, so must be sent before any other
+     * request as an archived repository is read-only.
+     * @return True if the repository is un-archived, otherwise false.
+     */
+    boolean isUnarchiving() {
+        return Boolean.FALSE.equals(settings.get("archived"));
+    }
+
+    private static void putIfChanged(Map<String, Object> settings, String key, Object desired, Object current) {
+        if (desired != null && !Objects.equals(desired, current)) {
+            settings.put(key, desired);
+        }
+    }
+
+    private static void putIfPresent(Map<String, Object> body, String key, Object value) {
+        if (value != null) {
+            body.put(key, value);
+        }
+    }
+
+    private static TreeSet<String> normalize(List<String> topics) {
+        TreeSet<String> normalized = new TreeSet<>();
+        for (String topic : topics == null ? Collections.<String>emptyList() : topics) {
+            normalized.add(topic.toLowerCase(Locale.ROOT));
+        }
+        return normalized;
+    }
+}
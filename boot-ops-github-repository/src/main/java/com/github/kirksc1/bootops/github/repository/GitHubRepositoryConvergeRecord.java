@@ -0,0 +1,81 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.kirksc1.bootops.github.repository;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import lombok.Getter;
+
+/**
+ * GitHubRepositoryConvergeRecord describes the outcome of converging a single repository, including the time
+ * spent in each phase of the converge.  Listing the authenticated user's repositories is recorded as well, with
+ * the LISTED action, no owner or name and the type "listing", so its API calls are accounted for.
+ */
+@Getter
+@JsonPropertyOrder({"type", "owner", "name", "action", "totalNanos", "queueNanos", "lookupNanos", "writeNanos", "apiCalls", "error"})
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class GitHubRepositoryConvergeRecord {
+
+    /**
+     * The action taken for a repository.
+     */
+    public enum Action {
+        CREATED,
+        UPDATED,
+        UNCHANGED,
+        ARCHIVED,
+        DELETED,
+        LISTED,
+        FAILED
+    }
+
+    private final String type;
+    private final String owner;
+    private final String name;
+    private final Action action;
+    private final long totalNanos;
+    private final long queueNanos;
+    private final long lookupNanos;
+    private final long writeNanos;
+    private final int apiCalls;
+    private final String error;
+
+    /**
+     * Construct a new instance.
+     * @param owner The repository owner.
+     * @param name The repository name.
+     * @param action The action taken.
+     * @param totalNanos The total time spent converging the repository.
+     * @param queueNanos The time spent waiting for capacity or rate limit budget.
+     * @param lookupNanos The time spent retrieving the repository from GitHub.
+     * @param writeNanos The time spent writing the repository to GitHub.
+     * @param apiCalls The number of GitHub API calls made.
+     * @param error The failure message when the action is FAILED, otherwise null.
+     */
+    public GitHubRepositoryConvergeRecord(String owner, String name, Action action, long totalNanos, long queueNanos,
+                                          long lookupNanos, long writeNanos, int apiCalls, String error) {
+        this.type = action == Action.LISTED ? "listing" : "repository";
+        this.owner = owner;
+        this.name = name;
+        this.action = action;
+        this.totalNanos = totalNanos;
+        this.queueNanos = queueNanos;
+        this.lookupNanos = lookupNanos;
+        this.writeNanos = writeNanos;
+        this.apiCalls = apiCalls;
+        this.error = error;
+    }
+}
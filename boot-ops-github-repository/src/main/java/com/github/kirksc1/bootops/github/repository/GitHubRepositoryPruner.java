@@ -0,0 +1,184 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.kirksc1.bootops.github.repository;
+
+import com.github.kirksc1.bootops.core.BootOpsException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.Assert;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * GitHubRepositoryPruner removes the repositories owned by the authenticated user that are no longer desired, by
+ * either archiving or deleting them.  Pruning is always done in two steps: a plan is made first, listing the
+ * orphaned repositories without changing anything, and only that plan can then be executed.  A plan is refused
+ * when nothing is desired or when it holds more than the maximum number of orphans, as both usually mean the
+ * desired repositories are incomplete, unless the plan is explicitly forced.
+ * <p>
+ * The owner's repositories are streamed a page at a time, so only the orphans are held in memory.  Orphans are
+ * pruned with bounded concurrency in the BACKGROUND lane, so pruning is paced by the request scheduler and does not
+ * take rate limit budget reserved for converges.
+ */
+@Slf4j
+public class GitHubRepositoryPruner {
+
+    /**
+     * What is done to orphaned repositories.
+     */
+    public enum Mode {
+        ARCHIVE,
+        DELETE
+    }
+
+    private final GitHubUserRepositoryService repositoryService;
+    private final Mode mode;
+    private final int concurrency;
+    private final int maxOrphans;
+
+    /**
+     * Construct a new instance with the provided configuration.
+     * @param repositoryService The user repository service.
+     * @param properties The prune configuration.
+     */
+    public GitHubRepositoryPruner(GitHubUserRepositoryService repositoryService, GitHubServiceProperties.Prune properties) {
+        Assert.notNull(repositoryService, "The GitHubUserRepositoryService provided was null");
+        Assert.notNull(properties, "The Prune properties provided were null");
+        Assert.notNull(properties.getMode(), "The prune mode provided was null");
+        Assert.isTrue(properties.getConcurrency() > 0, "The prune concurrency must be greater than zero");
+        Assert.isTrue(properties.getMaxOrphans() >= 0, "The prune max-orphans must not be negative");
+
+        this.repositoryService = repositoryService;
+        this.mode = properties.getMode();
+        this.concurrency = properties.getConcurrency();
+        this.maxOrphans = properties.getMaxOrphans();
+    }
+
+    /**
+     * Plan the prune of the repositories owned by the authenticated user that are absent from the desired
+     * repositories.  Already archived repositories are not planned to be archived again.  Nothing is changed in
+     * GitHub, and each orphan is logged.
+     * @param desired The full set of desired repositories.
+     * @return The plan.
+     * @throws BootOpsException if nothing is desired or the plan holds more than the maximum number of orphans.
+     */
+    public GitHubPrunePlan plan(Collection<? extends GitHubRepository> desired) {
+        return plan(desired, false);
+    }
+
+    /**
+     * Plan the prune of the repositories owned by the authenticated user that are absent from the desired
+     * repositories, optionally forcing a plan that would otherwise be refused.
+     * @param desired The full set of desired repositories.
+     * @param force True to plan even when nothing is desired or the maximum number of orphans is exceeded.
+     * @return The plan.
+     * @throws BootOpsException if not forced and nothing is desired or the plan holds more than the maximum
+     * number of orphans.
+     */
+    public GitHubPrunePlan plan(Collection<? extends GitHubRepository> desired, boolean force) {
+        Assert.notNull(desired, "The desired repositories provided were null");
+        if (desired.isEmpty() && !force) {
+            throw new BootOpsException("Refusing to plan a prune of every GitHub repository as no repositories are desired", null);
+        }
+
+        Set<String> desiredKeys = new HashSet<>();
+        for (GitHubRepository repository : desired) {
+            desiredKeys.add(key(repository));
+        }
+
+        AtomicLong listed = new AtomicLong();
+        List<GitHubUserRepository> orphans = new ArrayList<>();
+        repositoryService.listUserRepositories(GitHubRequestScheduler.Priority.BACKGROUND)
+                .doOnNext(repository -> listed.incrementAndGet())
+                .filter(repository -> !desiredKeys.contains(key(repository)))
+                .filter(repository -> mode == Mode.DELETE || !Boolean.TRUE.equals(repository.getArchived()))
+                .doOnNext(orphans::add)
+                .blockLast();
+
+        String verb = mode == Mode.DELETE ? "delete" : "archive";
+        if (orphans.size() > maxOrphans && !force) {
+            throw new BootOpsException("Refusing to plan a prune to " + verb + " " + orphans.size() + " of " + listed.get()
+                    + " GitHub repositories as it exceeds the maximum of " + maxOrphans + " orphans", null);
+        }
+        for (GitHubUserRepository orphan : orphans) {
+            log.info("Prune plan: {} {}/{}", verb, orphan.getOwner(), orphan.getName());
+        }
+        log.info("Prune plan: {} {} of {} repositories", verb, orphans.size(), listed.get());
+
+        return new GitHubPrunePlan(mode, listed.get(), orphans, this);
+    }
+
+    /**
+     * Execute a plan made by this pruner.  Every orphan is attempted, and the outcome of each is recorded in the
+     * converge report.
+     * @param plan The plan to execute.
+     * @return The number of repositories pruned.
+     * @throws BootOpsException if any repository could not be pruned.
+     */
+    public int execute(GitHubPrunePlan plan) {
+        Assert.notNull(plan, "The GitHubPrunePlan provided was null");
+        Assert.isTrue(plan.isMadeBy(this), "The GitHubPrunePlan provided was made by another pruner");
+        Assert.state(plan.markExecuted(), "The GitHubPrunePlan provided was already executed");
+
+        Collection<RuntimeException> failures = new ConcurrentLinkedQueue<>();
+        Long pruned = Flux.fromIterable(plan.getOrphans())
+                .flatMap(orphan -> Mono.fromRunnable(() -> prune(plan.getMode(), orphan))
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .thenReturn(orphan)
+                        .onErrorResume(RuntimeException.class, e -> {
+                            log.warn("Unable to prune {}/{}", orphan.getOwner(), orphan.getName(), e);
+                            failures.add(e);
+                            return Mono.empty();
+                        }), concurrency)
+                .count()
+                .block();
+
+        if (!failures.isEmpty()) {
+            BootOpsException exception = null;
+            for (RuntimeException failure : failures) {
+                if (exception == null) {
+                    exception = new BootOpsException("Unable to prune " + failures.size() + " of "
+                            + plan.getOrphans().size() + " GitHub repositories", failure);
+                } else {
+                    exception.addSuppressed(failure);
+                }
+            }
+            throw exception;
+        }
+        return pruned == null ? 0 : pruned.intValue();
+    }
+
+    private void prune(Mode mode, GitHubUserRepository orphan) {
+        if (mode == Mode.DELETE) {
+            repositoryService.deleteRepository(orphan, GitHubRequestScheduler.Priority.BACKGROUND);
+        } else {
+            repositoryService.archiveRepository(orphan, GitHubRequestScheduler.Priority.BACKGROUND);
+        }
+    }
+
+    private static String key(GitHubRepository repository) {
+        return (repository.getOwner() + "/" + repository.getName()).toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,308 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.kirksc1.bootops.github.repository;
+
+import org.springframework.util.Assert;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.UriUtils;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * GitHubRepositoryUris builds the absolute URIs of the GitHub service endpoints, and caches the URIs of each
+ * repository so that converging a repository again neither concatenates, encodes nor parses its paths.  The owner
+ * and name of each repository are percent-encoded as path segments.  The base URL is either provided, or read
+ * from the WebClient sending the requests the first time a URI is built, so both always target the same URL.
+ * <p>
+ * The cache holds at most the configured number of repositories, evicting an arbitrary repository when full, and
+ * lookups of cached repositories do not allocate.  The repositories of an owner are only changed while computing
+ * the owner's entry, so the size stays consistent with the cached repositories when lookups race a clear.
+ */
+public class GitHubRepositoryUris {
+
+    private final Supplier<String> baseUrlSupplier;
+    private final int maxSize;
+    private volatile String baseUrl;
+    private volatile URI userRepositories;
+
+    private final ConcurrentMap<String, ConcurrentMap<String, RepositoryUris>> cache = new ConcurrentHashMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Construct a new instance for the provided GitHub service.
+     * @param baseUrl The base URL of the GitHub service.
+     * @param maxSize The maximum number of repositories to cache the URIs of.
+     */
+    public GitHubRepositoryUris(String baseUrl, int maxSize) {
+        Assert.notNull(baseUrl, "The base URL provided was null");
+        Assert.isTrue(maxSize >= 0, "The max size must not be negative");
+
+        this.baseUrlSupplier = () -> baseUrl;
+        this.maxSize = maxSize;
+        resolveBaseUrl();
+    }
+
+    private GitHubRepositoryUris(Supplier<String> baseUrlSupplier, int maxSize) {
+        Assert.isTrue(maxSize >= 0, "The max size must not be negative");
+
+        this.baseUrlSupplier = baseUrlSupplier;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Create a new instance for the GitHub service a WebClient sends its requests to.  The base URL is read from
+     * the WebClient the first time a URI is built, so a lazy WebClient is not created any earlier.
+     * @param webClient The WebClient sending the requests.
+     * @param maxSize The maximum number of repositories to cache the URIs of.
+     * @return The new instance.
+     */
+    public static GitHubRepositoryUris forWebClient(WebClient webClient, int maxSize) {
+        Assert.notNull(webClient, "The WebClient provided was null");
+
+        return new GitHubRepositoryUris(() -> baseUrlOf(webClient), maxSize);
+    }
+
+    /**
+     * Read the base URL of a WebClient, as the URI its UriBuilderFactory builds without a URI template.  The
+     * request spec is discarded, so nothing is sent.
+     * @param webClient The WebClient.
+     * @return The base URL, empty when the WebClient has none.
+     */
+    static String baseUrlOf(WebClient webClient) {
+        URI[] base = new URI[1];
+        webClient.get().uri(builder -> base[0] = builder.build());
+        return base[0].toString();
+    }
+
+    /**
+     * Retrieve the URIs of a repository.
+     * @param owner The repository owner.
+     * @param name The repository name.
+     * @return The URIs of the repository.
+     */
+    RepositoryUris of(String owner, String name) {
+        Assert.notNull(owner, "The owner provided was null");
+        Assert.notNull(name, "The name provided was null");
+
+        ConcurrentMap<String, RepositoryUris> names = cache.get(owner);
+        RepositoryUris uris = names == null ? null : names.get(name);
+        if (uris != null) {
+            hits.increment();
+            return uris;
+        }
+
+        misses.increment();
+        uris = new RepositoryUris(baseUrl(), owner, name);
+        if (maxSize > 0) {
+            if (size.get() >= maxSize) {
+                evict();
+            }
+            RepositoryUris built = uris;
+            cache.compute(owner, (key, names) -> {
+                ConcurrentMap<String, RepositoryUris> owned = names == null ? new ConcurrentHashMap<>() : names;
+                if (owned.putIfAbsent(name, built) == null) {
+                    size.incrementAndGet();
+                }
+                return owned;
+            });
+        }
+        return uris;
+    }
+
+    /**
+     * Retrieve the URI of the repositories of the authenticated user.
+     * @return The URI.
+     */
+    URI userRepositories() {
+        baseUrl();
+        return userRepositories;
+    }
+
+    /**
+     * Retrieve the URI of a page of the repositories owned by the authenticated user.
+     * @param perPage The number of repositories per page.
+     * @param page The number of the page, starting from 1.
+     * @return The URI.
+     */
+    URI userRepositoriesPage(int perPage, int page) {
+        return URI.create(userRepositories() + "?affiliation=owner&sort=full_name&per_page=" + perPage + "&page=" + page);
+    }
+
+    /**
+     * Retrieve the number of repositories whose URIs are cached.
+     * @return The number of repositories.
+     */
+    public int getSize() {
+        return size.get();
+    }
+
+    /**
+     * Retrieve the number of owners with cached repositories.
+     * @return The number of owners.
+     */
+    int getOwnerCount() {
+        return cache.size();
+    }
+
+    /**
+     * Retrieve the number of lookups answered from the cache.
+     * @return The number of hits.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Retrieve the number of lookups that built the URIs of a repository.
+     * @return The number of misses.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Retrieve the base URL, resolving it on first use.
+     * @return The base URL, without a trailing slash.
+     */
+    private String baseUrl() {
+        String resolved = baseUrl;
+        return resolved != null ? resolved : resolveBaseUrl();
+    }
+
+    private synchronized String resolveBaseUrl() {
+        if (baseUrl == null) {
+            String supplied = baseUrlSupplier.get();
+            Assert.state(supplied != null, "The base URL of the GitHub service is unknown");
+
+            String trimmed = supplied.endsWith("/") ? supplied.substring(0, supplied.length() - 1) : supplied;
+            userRepositories = URI.create(trimmed + "/user/repos");
+            baseUrl = trimmed;
+        }
+        return baseUrl;
+    }
+
+    /**
+     * Remove every cached repository.
+     */
+    public void clear() {
+        for (String owner : cache.keySet()) {
+            cache.computeIfPresent(owner, (key, names) -> {
+                size.addAndGet(-names.size());
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Evict an arbitrary repository, dropping its owner once the owner has no cached repositories left.
+     */
+    private void evict() {
+        boolean[] evicted = new boolean[1];
+        for (String owner : cache.keySet()) {
+            cache.computeIfPresent(owner, (key, names) -> {
+                Iterator<RepositoryUris> iterator = names.values().iterator();
+                if (iterator.hasNext()) {
+                    iterator.next();
+                    iterator.remove();
+                    size.decrementAndGet();
+                    evicted[0] = true;
+                }
+                return names.isEmpty() ? null : names;
+            });
+            if (evicted[0]) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * RepositoryUris holds the URIs of a single repository.
+     */
+    static class RepositoryUris {
+        private final String fullName;
+        private final String path;
+        private final URI repository;
+        private final URI topics;
+        private volatile BranchUri protection;
+
+        RepositoryUris(String baseUrl, String owner, String name) {
+            this.fullName = owner + "/" + name;
+            this.path = "/repos/" + UriUtils.encodePathSegment(owner, StandardCharsets.UTF_8)
+                    + "/" + UriUtils.encodePathSegment(name, StandardCharsets.UTF_8);
+            this.repository = URI.create(baseUrl + path);
+            this.topics = URI.create(baseUrl + path + "/topics");
+        }
+
+        /**
+         * Retrieve the owner and name of the repository, as owner/name.
+         * @return The full name.
+         */
+        String fullName() {
+            return fullName;
+        }
+
+        /**
+         * Retrieve the encoded path of the repository, relative to the base URL.
+         * @return The path.
+         */
+        String path() {
+            return path;
+        }
+
+        URI repository() {
+            return repository;
+        }
+
+        URI topics() {
+            return topics;
+        }
+
+        /**
+         * Retrieve the URI of the protection of a branch.  The URI of the last branch requested is kept, as it is
+         * nearly always the default branch.
+         * @param branch The branch.
+         * @return The URI.
+         */
+        URI protection(String branch) {
+            BranchUri current = protection;
+            if (current == null || !current.branch.equals(branch)) {
+                current = new BranchUri(branch, URI.create(repository + "/branches/"
+                        + UriUtils.encodePathSegment(branch, StandardCharsets.UTF_8) + "/protection"));
+                protection = current;
+            }
+            return current.uri;
+        }
+    }
+
+    private static class BranchUri {
+        private final String branch;
+        private final URI uri;
+
+        private BranchUri(String branch, URI uri) {
+            this.branch = branch;
+            this.uri = uri;
+        }
+    }
+}
@@ -0,0 +1,488 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.kirksc1.bootops.github.repository;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.github.kirksc1.bootops.core.BootOpsException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.Assert;
+
+import java.util.ArrayDeque;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * GitHubRequestScheduler paces the requests sent to the GitHub service across priority lanes, so that urgent
+ * converges are not starved by bulk sweeps sharing the same WebClient and rate limit.
+ * <p>
+ * Each lane has a reserved number of concurrent requests that only it may use, while the remaining requests are
+ * shared and granted to the highest priority lane that is waiting.  A lane whose oldest request has waited longer
+ * than the starvation threshold is served from the shared pool ahead of lanes that have not.  Each lane may also
+ * reserve a share of the rate limit budget reported by GitHub: a lane stops sending requests once the remaining
+ * budget falls to the shares reserved by the lanes above it, and every lane waits when GitHub asks to back off.
+ * A starved lane may still send one request per starvation threshold from the shares reserved above it, so a
+ * nearly exhausted budget delays the lower lanes without starving them.
+ * <p>
+ * The queue depth and number of active requests of each lane are published as gauges, and the time spent waiting
+ * as a timer, tagged with the lane.
+ */
+public class GitHubRequestScheduler {
+
+    /**
+     * The priority lanes, from most to least urgent.
+     */
+    public enum Priority {
+        INTERACTIVE,
+        NORMAL,
+        BACKGROUND;
+
+        /**
+         * Resolve a lane from its name, ignoring case, so that manifests may use the lowercase lane names.
+         * @param value The name of the lane.
+         * @return The lane.
+         */
+        @JsonCreator
+        public static Priority fromValue(String value) {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        }
+
+        String tag() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private static final Priority[] PRIORITIES = Priority.values();
+    private static final long DEFAULT_BACKOFF_MILLIS = 60_000;
+    private static final long RATE_LIMIT_WINDOW_MILLIS = 3_600_000;
+
+    @Getter
+    private final int maxRetries;
+    private final long starvationNanos;
+    private final int[] reserved = new int[PRIORITIES.length];
+    private final int shared;
+    private final double[] budgetFloor = new double[PRIORITIES.length];
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    @SuppressWarnings("unchecked")
+    private final ArrayDeque<Waiter>[] queues = new ArrayDeque[PRIORITIES.length];
+    private final int[] reservedActive = new int[PRIORITIES.length];
+    private final long[] floorBypassedNanos = new long[PRIORITIES.length];
+    private int sharedActive;
+
+    private volatile long limit = -1;
+    private volatile long remaining;
+    private volatile long resetAtMillis;
+    private volatile long pausedUntilMillis;
+    private volatile boolean paused;
+
+    private final AtomicIntegerArray queued = new AtomicIntegerArray(PRIORITIES.length);
+    private final AtomicIntegerArray active = new AtomicIntegerArray(PRIORITIES.length);
+    private final Timer[] waitTimers = new Timer[PRIORITIES.length];
+
+    /**
+     * Construct a new instance with the provided configuration.
+     * @param properties The scheduler configuration.
+     * @param meterRegistry The registry to publish the lane metrics to.
+     */
+    public GitHubRequestScheduler(GitHubServiceProperties.Scheduler properties, MeterRegistry meterRegistry) {
+        Assert.notNull(properties, "The Scheduler properties provided were null");
+        Assert.notNull(meterRegistry, "The MeterRegistry provided was null");
+        Assert.isTrue(properties.getMaxConcurrency() > 0, "The max-concurrency must be greater than zero");
+
+        this.maxRetries = properties.getMaxRetries();
+        this.starvationNanos = properties.getStarvationThreshold().toNanos();
+
+        int reservedTotal = 0;
+        double budgetTotal = 0;
+        for (Priority priority : PRIORITIES) {
+            GitHubServiceProperties.Lane lane = properties.getLane(priority);
+            int index = priority.ordinal();
+
+            reserved[index] = lane.getConcurrencyShare() > 0
+                    ? Math.max(1, (int) Math.floor(properties.getMaxConcurrency() * lane.getConcurrencyShare()))
+                    : 0;
+            reservedTotal += reserved[index];
+
+            budgetFloor[index] = budgetTotal;
+            budgetTotal += lane.getBudgetShare();
+
+            queues[index] = new ArrayDeque<>();
+            floorBypassedNanos[index] = System.nanoTime() - starvationNanos - 1;
+            String tag = priority.tag();
+            Gauge.builder("bootops.github.scheduler.queue", queued, depths -> depths.get(index))
+                    .description("Requests waiting to be sent to GitHub")
+                    .tag("lane", tag)
+                    .register(meterRegistry);
+            Gauge.builder("bootops.github.scheduler.active", active, counts -> counts.get(index))
+                    .description("Requests being sent to GitHub")
+                    .tag("lane", tag)
+                    .register(meterRegistry);
+            waitTimers[index] = Timer.builder("bootops.github.scheduler.wait")
+                    .description("Time requests waited for capacity or rate limit budget")
+                    .tag("lane", tag)
+                    .register(meterRegistry);
+        }
+        Assert.isTrue(reservedTotal <= properties.getMaxConcurrency(), "The lanes reserve more than max-concurrency requests");
+        Assert.isTrue(budgetTotal <= 1.0, "The lanes reserve more than the whole rate limit budget");
+
+        this.shared = properties.getMaxConcurrency() - reservedTotal;
+    }
+
+    /**
+     * Wait until a request may be sent in the provided lane.  The Permit returned must be closed once the
+     * response has been received.
+     * @param priority The lane of the request.
+     * @return The Permit to send the request.
+     */
+    public Permit acquire(Priority priority) {
+        int lane = priority.ordinal();
+        Waiter waiter = new Waiter(System.nanoTime());
+
+        lock.lock();
+        try {
+            queues[lane].addLast(waiter);
+            queued.incrementAndGet(lane);
+            try {
+                while (true) {
+                    long nowMillis = System.currentTimeMillis();
+                    refreshBudget(nowMillis);
+                    if (queues[lane].peekFirst() == waiter && canStart(lane, nowMillis)) {
+                        break;
+                    }
+                    changed.awaitNanos(waitNanos(lane, nowMillis));
+                }
+            } catch (InterruptedException e) {
+                queues[lane].remove(waiter);
+                queued.decrementAndGet(lane);
+                changed.signalAll();
+                Thread.currentThread().interrupt();
+                throw new BootOpsException("Interrupted while waiting to send a request to GitHub", e);
+            }
+
+            if (limit >= 0 && remaining <= budgetFloorOf(lane)) {
+                floorBypassedNanos[lane] = System.nanoTime();
+            }
+            queues[lane].removeFirst();
+            queued.decrementAndGet(lane);
+            boolean fromShared = reservedActive[lane] >= reserved[lane];
+            if (fromShared) {
+                sharedActive++;
+            } else {
+                reservedActive[lane]++;
+            }
+            active.incrementAndGet(lane);
+            if (limit >= 0) {
+                remaining--;
+            }
+            changed.signalAll();
+
+            long waitedNanos = System.nanoTime() - waiter.enqueuedNanos;
+            waitTimers[lane].record(waitedNanos, TimeUnit.NANOSECONDS);
+            return new Permit(lane, fromShared, waitedNanos);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Update the rate limit budget from the headers of a GitHub response.
+     * @param headers The response headers.
+     */
+    public void onResponse(HttpHeaders headers) {
+        String limitHeader = headers.getFirst("X-RateLimit-Limit");
+        String remainingHeader = headers.getFirst("X-RateLimit-Remaining");
+        String resetHeader = headers.getFirst("X-RateLimit-Reset");
+        if (limitHeader == null || remainingHeader == null || resetHeader == null) {
+            return;
+        }
+
+        lock.lock();
+        try {
+            limit = Long.parseLong(limitHeader);
+            remaining = Long.parseLong(remainingHeader);
+            resetAtMillis = Long.parseLong(resetHeader) * 1000;
+            changed.signalAll();
+        } catch (NumberFormatException e) {
+            limit = -1;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Pause every lane after GitHub rejected a request for exceeding a rate limit.  Requests resume after the
+     * Retry-After delay when provided, otherwise at the rate limit reset when the budget is exhausted, otherwise
+     * after one minute.
+     * @param headers The headers of the rejected response.
+     */
+    public void onRateLimited(HttpHeaders headers) {
+        onResponse(headers);
+
+        lock.lock();
+        try {
+            long nowMillis = System.currentTimeMillis();
+            String retryAfter = headers.getFirst(HttpHeaders.RETRY_AFTER);
+            long resumeAtMillis;
+            if (retryAfter != null) {
+                resumeAtMillis = nowMillis + parseSeconds(retryAfter) * 1000;
+            } else if (limit >= 0 && remaining <= 0 && resetAtMillis > nowMillis) {
+                resumeAtMillis = resetAtMillis;
+            } else {
+                resumeAtMillis = nowMillis + DEFAULT_BACKOFF_MILLIS;
+            }
+            pausedUntilMillis = Math.max(pausedUntilMillis, resumeAtMillis);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Retrieve the number of requests waiting in a lane.
+     * @param priority The lane.
+     * @return The number of waiting requests.
+     */
+    public int getQueueDepth(Priority priority) {
+        return queued.get(priority.ordinal());
+    }
+
+    /**
+     * Retrieve the number of requests being sent in a lane.
+     * @param priority The lane.
+     * @return The number of active requests.
+     */
+    public int getActive(Priority priority) {
+        return active.get(priority.ordinal());
+    }
+
+    /**
+     * Stop granting permits in every lane until resumed.  Requests already sent are not affected.
+     */
+    public void pause() {
+        lock.lock();
+        try {
+            paused = true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Resume granting permits after a pause.
+     */
+    public void resume() {
+        lock.lock();
+        try {
+            paused = false;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Determine whether the scheduler has been paused.
+     * @return True if paused, otherwise false.
+     */
+    public boolean isPaused() {
+        return paused;
+    }
+
+    /**
+     * Retrieve the rate limit last reported by GitHub.
+     * @return The number of requests allowed per window, or -1 if GitHub has not reported it.
+     */
+    public long getRateLimit() {
+        return limit;
+    }
+
+    /**
+     * Retrieve the remaining rate limit budget, as last reported by GitHub less the requests sent since.
+     * @return The number of requests remaining in the window.
+     */
+    public long getRateLimitRemaining() {
+        return limit < 0 ? -1 : remaining;
+    }
+
+    /**
+     * Retrieve when the rate limit window resets.
+     * @return The reset time in milliseconds since the epoch, or 0 if GitHub has not reported it.
+     */
+    public long getRateLimitResetMillis() {
+        return resetAtMillis;
+    }
+
+    /**
+     * Retrieve until when every lane waits after GitHub asked to back off.
+     * @return The time in milliseconds since the epoch, in the past when not backing off.
+     */
+    public long getPausedUntilMillis() {
+        return pausedUntilMillis;
+    }
+
+    private void release(Permit permit) {
+        lock.lock();
+        try {
+            if (permit.fromShared) {
+                sharedActive--;
+            } else {
+                reservedActive[permit.lane]--;
+            }
+            active.decrementAndGet(permit.lane);
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Refill the budget once the rate limit window has reset.  The next reset is assumed to be one window later,
+     * so that requests keep being counted against the refilled budget until a response reports the actual one.
+     */
+    private void refreshBudget(long nowMillis) {
+        if (limit >= 0 && nowMillis >= resetAtMillis) {
+            remaining = limit;
+            resetAtMillis = nowMillis + RATE_LIMIT_WINDOW_MILLIS;
+        }
+    }
+
+    private boolean hasBudget(int lane, long nowMillis, long nowNanos) {
+        if (paused || nowMillis < pausedUntilMillis) {
+            return false;
+        }
+        if (limit < 0) {
+            return true;
+        }
+        return remaining > (mayBypassBudgetFloor(lane, nowNanos) ? 0 : budgetFloorOf(lane));
+    }
+
+    private long budgetFloorOf(int lane) {
+        return (long) Math.floor(limit * budgetFloor[lane]);
+    }
+
+    /**
+     * Determine whether a starved lane may send a request from the budget reserved by the lanes above it.  Only
+     * one such request is granted per starvation threshold, so the reserved budget is drained slowly.
+     */
+    private boolean mayBypassBudgetFloor(int lane, long nowNanos) {
+        return isAged(lane, nowNanos) && nowNanos - floorBypassedNanos[lane] > starvationNanos;
+    }
+
+    private boolean isAged(int lane, long nowNanos) {
+        Waiter head = queues[lane].peekFirst();
+        return head != null && nowNanos - head.enqueuedNanos > starvationNanos;
+    }
+
+    private boolean canStart(int lane, long nowMillis) {
+        long nowNanos = System.nanoTime();
+        if (!hasBudget(lane, nowMillis, nowNanos)) {
+            return false;
+        }
+        if (reservedActive[lane] < reserved[lane]) {
+            return true;
+        }
+        if (sharedActive >= shared) {
+            return false;
+        }
+
+        boolean aged = isAged(lane, nowNanos);
+        for (int other = 0; other < PRIORITIES.length; other++) {
+            if (other == lane || queues[other].isEmpty() || reservedActive[other] < reserved[other] || !hasBudget(other, nowMillis, nowNanos)) {
+                continue;
+            }
+            boolean otherAged = isAged(other, nowNanos);
+            if ((otherAged && !aged) || (otherAged == aged && other < lane)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long waitNanos(int lane, long nowMillis) {
+        if (paused) {
+            return Long.MAX_VALUE;
+        }
+        long minWaitNanos = TimeUnit.MILLISECONDS.toNanos(1);
+        if (nowMillis < pausedUntilMillis) {
+            return TimeUnit.MILLISECONDS.toNanos(pausedUntilMillis - nowMillis);
+        }
+        long nowNanos = System.nanoTime();
+        if (!hasBudget(lane, nowMillis, nowNanos)) {
+            long waitNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, resetAtMillis - nowMillis));
+            Waiter head = queues[lane].peekFirst();
+            if (remaining > 0 && head != null) {
+                long bypassAtNanos = Math.max(head.enqueuedNanos, floorBypassedNanos[lane]) + starvationNanos + 1;
+                waitNanos = Math.min(waitNanos, Math.max(minWaitNanos, bypassAtNanos - nowNanos));
+            }
+            return waitNanos;
+        }
+        return Math.max(minWaitNanos, starvationNanos);
+    }
+
+    private static long parseSeconds(String value) {
+        try {
+            return Math.max(0, Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            return DEFAULT_BACKOFF_MILLIS / 1000;
+        }
+    }
+
+    /**
+     * Waiter is a request waiting in a lane.
+     */
+    private static class Waiter {
+        private final long enqueuedNanos;
+
+        private Waiter(long enqueuedNanos) {
+            this.enqueuedNanos = enqueuedNanos;
+        }
+    }
+
+    /**
+     * Permit is the right to send a single request to the GitHub service.
+     */
+    public class Permit implements AutoCloseable {
+        private final int lane;
+        private final boolean fromShared;
+        @Getter
+        private final long waitNanos;
+        private boolean released;
+
+        private Permit(int lane, boolean fromShared, long waitNanos) {
+            this.lane = lane;
+            this.fromShared = fromShared;
+            this.waitNanos = waitNanos;
+        }
+
+        /**
+         * Release the permit, allowing another request to be sent.
+         */
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                release(this);
+            }
+        }
+    }
+}
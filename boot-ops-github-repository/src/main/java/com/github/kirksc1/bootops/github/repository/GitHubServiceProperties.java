@@ -18,7 +18,8 @@ package com.github.kirksc1.bootops.github.repository;
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
-import org.springframework.boot.context.properties.EnableConfigurationProperties;
+
+import java.time.Duration;
 
 /**
  * GitHubServiceProperties contains the configuration properties for the GitHub service.
@@ -27,7 +28,122 @@ import org.springframework.boot.context.properties.EnableConfigurationProperties
 @Setter
 @ConfigurationProperties(prefix = "github.service")
 public class GitHubServiceProperties {
+    private boolean enabled = true;
     private String baseUrl = "https://api.github.com";
     private String accept = "application/vnd.github+json";
     private String tokenEnvironmentVariableName = "GITHUB_TOKEN";
+
+    /**
+     * The maximum number of repositories whose encoded request URIs are cached.
+     */
+    private int uriCacheSize = 10_000;
+    private final Report report = new Report();
+    private final Scheduler scheduler = new Scheduler();
+    private final Prune prune = new Prune();
+
+    /**
+     * Report contains the configuration properties for the converge report.
+     */
+    @Getter
+    @Setter
+    public static class Report {
+        /**
+         * File to stream the NDJSON converge report to.  When not set, the report is streamed to the log.
+         */
+        private String path;
+    }
+
+    /**
+     * Scheduler contains the configuration properties for pacing requests across the priority lanes.
+     */
+    @Getter
+    @Setter
+    public static class Scheduler {
+        /**
+         * The maximum number of concurrent requests sent to GitHub across all lanes.
+         */
+        private int maxConcurrency = 8;
+
+        /**
+         * How long the oldest request of a lane may wait before it is served ahead of higher priority lanes.
+         */
+        private Duration starvationThreshold = Duration.ofSeconds(30);
+
+        /**
+         * The number of times a request rejected by a GitHub rate limit is retried.
+         */
+        private int maxRetries = 3;
+
+        private final Lane interactive = new Lane(0.25, 0.2);
+        private final Lane normal = new Lane(0.25, 0.3);
+        private final Lane background = new Lane(0.125, 0.0);
+
+        /**
+         * Retrieve the configuration of a priority lane.
+         * @param priority The lane.
+         * @return The lane configuration.
+         */
+        public Lane getLane(GitHubRequestScheduler.Priority priority) {
+            switch (priority) {
+                case INTERACTIVE:
+                    return interactive;
+                case NORMAL:
+                    return normal;
+                default:
+                    return background;
+            }
+        }
+    }
+
+    /**
+     * Prune contains the configuration properties for pruning repositories that are no longer desired.
+     */
+    @Getter
+    @Setter
+    public static class Prune {
+        /**
+         * Whether the GitHubRepositoryPruner is available.  Pruning is opt-in.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Whether orphaned repositories are archived or deleted.
+         */
+        private GitHubRepositoryPruner.Mode mode = GitHubRepositoryPruner.Mode.ARCHIVE;
+
+        /**
+         * The maximum number of repositories pruned concurrently.
+         */
+        private int concurrency = 4;
+
+        /**
+         * The maximum number of orphans a plan may hold, larger plans are refused unless forced.
+         */
+        private int maxOrphans = 50;
+    }
+
+    /**
+     * Lane contains the configuration properties for a single priority lane.
+     */
+    @Getter
+    @Setter
+    public static class Lane {
+        /**
+         * The share of max-concurrency reserved for the lane.
+         */
+        private double concurrencyShare;
+
+        /**
+         * The share of the GitHub rate limit budget reserved for the lane.
+         */
+        private double budgetShare;
+
+        public Lane() {
+        }
+
+        Lane(double concurrencyShare, double budgetShare) {
+            this.concurrencyShare = concurrencyShare;
+            this.budgetShare = budgetShare;
+        }
+    }
 }
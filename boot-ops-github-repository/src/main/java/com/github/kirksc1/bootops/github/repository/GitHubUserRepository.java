@@ -33,6 +33,11 @@ public class GitHubUserRepository extends GitHubRepository {
 
     private String user;
 
+    /**
+     * The priority lane to converge the repository in, when null the NORMAL lane is used.
+     */
+    private GitHubRequestScheduler.Priority priority;
+
     @Override
     public String getOwner() {
         return user;
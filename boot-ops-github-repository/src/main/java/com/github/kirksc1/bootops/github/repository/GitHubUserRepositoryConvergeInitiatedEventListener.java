@@ -17,6 +17,8 @@ package com.github.kirksc1.bootops.github.repository;
 
 import com.github.kirksc1.bootops.converge.ItemConvergeInitiatedEvent;
 import com.github.kirksc1.bootops.core.AttributeRetriever;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import org.springframework.context.ApplicationListener;
 import org.springframework.util.Assert;
 
@@ -26,29 +28,61 @@ import org.springframework.util.Assert;
  */
 public class GitHubUserRepositoryConvergeInitiatedEventListener implements ApplicationListener<ItemConvergeInitiatedEvent> {
 
+    /**
+     * Name of the observation made for each repository converge dispatched by the listener.
+     */
+    public static final String CONVERGE_OBSERVATION_NAME = "bootops.github.converge";
+
     private final GitHubUserRepositoryService repositoryService;
     private final AttributeRetriever<GitHubUserRepository> retriever;
+    private final ObservationRegistry observationRegistry;
 
     /**
      * Construct a new instance with the provide user repository service.
      * @param repositoryService The user repository service.
      */
     public GitHubUserRepositoryConvergeInitiatedEventListener(GitHubUserRepositoryService repositoryService, AttributeRetriever<GitHubUserRepository> retriever) {
+        this(repositoryService, retriever, ObservationRegistry.NOOP);
+    }
+
+    /**
+     * Construct a new instance that observes each repository converge it dispatches.
+     * @param repositoryService The user repository service.
+     * @param retriever The GitHubUserRepository attribute retriever.
+     * @param observationRegistry The registry to observe each repository converge with.
+     */
+    public GitHubUserRepositoryConvergeInitiatedEventListener(GitHubUserRepositoryService repositoryService,
+                                                              AttributeRetriever<GitHubUserRepository> retriever,
+                                                              ObservationRegistry observationRegistry) {
         Assert.notNull(repositoryService, "The GitHubUserRepositoryService provided was null");
         Assert.notNull(retriever, "The AttributeRetriever provided was null");
+        Assert.notNull(observationRegistry, "The ObservationRegistry provided was null");
 
         this.repositoryService = repositoryService;
         this.retriever = retriever;
+        this.observationRegistry = observationRegistry;
     }
 
     /**
      * Listen for ItemConvergeInitiatedEvents and when a GitHubUserRepository attribute is present, then
-     * converge the changes to GitHub.
+     * converge the changes to GitHub in the repository's priority lane, NORMAL unless set.  Each converge is
+     * observed, so that the requests it sends to GitHub are grouped under it.
      * @param event An ItemConvergeInitiatedEvent.
      */
     @Override
     public void onApplicationEvent(ItemConvergeInitiatedEvent event) {
         retriever.retrieve(event.getItem())
-                .ifPresent(repositoryService::applyState);
+                .ifPresent(this::converge);
+    }
+
+    private void converge(GitHubUserRepository repository) {
+        GitHubRequestScheduler.Priority priority = repository.getPriority() != null
+                ? repository.getPriority()
+                : GitHubRequestScheduler.Priority.NORMAL;
+        Observation.createNotStarted(CONVERGE_OBSERVATION_NAME, observationRegistry)
+                .parentObservation(observationRegistry.getCurrentObservation())
+                .contextualName("converge " + GitHubUserRepository.ATTRIBUTE_NAME)
+                .highCardinalityKeyValue("github.repository", repository.getOwner() + "/" + repository.getName())
+                .observe(() -> repositoryService.applyState(repository, priority));
     }
 }
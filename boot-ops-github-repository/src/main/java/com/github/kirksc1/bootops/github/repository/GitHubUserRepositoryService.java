@@ -15,14 +15,38 @@
  */
 package com.github.kirksc1.bootops.github.repository;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.github.kirksc1.bootops.core.BootOpsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.contextpropagation.ObservationThreadLocalAccessor;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.util.Assert;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
 
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 /**
  * GitHubUserRepositoryService is an application service that provides the ability converge a
@@ -30,48 +54,290 @@ import java.util.Optional;
  */
 public class GitHubUserRepositoryService {
 
+    /**
+     * Name of the observation made for each request sent to the GitHub service.
+     */
+    public static final String REQUEST_OBSERVATION_NAME = "bootops.github.request";
+
+    private static final int PAGE_SIZE = 100;
+    private static final ObjectWriter JSON_WRITER = new ObjectMapper().writer();
+    private static final byte[] ARCHIVE_BODY = toJson(Collections.singletonMap("archived", true));
+
     private final WebClient webClient;
+    private final GitHubConvergeReport report;
+    private final ObservationRegistry observationRegistry;
+    private final GitHubRequestScheduler scheduler;
+    private final GitHubRepositoryUris uris;
+    private final Set<Converge> inFlight = ConcurrentHashMap.newKeySet();
 
     /**
-     * Construct a new instance with the provided WebClient.
+     * Construct a new instance with the provided WebClient, sending requests to the base URL of the WebClient.
      * @param webClient The WebClient to use when interacting with the GitHub service.
      */
     public GitHubUserRepositoryService(WebClient webClient) {
+        this(webClient, GitHubRepositoryUris.forWebClient(webClient, new GitHubServiceProperties().getUriCacheSize()));
+    }
+
+    /**
+     * Construct a new instance with the provided WebClient, sending requests to the URIs provided.
+     * @param webClient The WebClient to use when interacting with the GitHub service.
+     * @param uris The URIs of the GitHub service endpoints.
+     */
+    public GitHubUserRepositoryService(WebClient webClient, GitHubRepositoryUris uris) {
+        this(webClient, new GitHubConvergeReport(), ObservationRegistry.NOOP,
+                new GitHubRequestScheduler(new GitHubServiceProperties.Scheduler(), new SimpleMeterRegistry()), uris);
+    }
+
+    /**
+     * Construct a new instance with the provided WebClient, converge report, observation registry, scheduler and
+     * URIs.  Requests are sent to the absolute URIs provided, so the URIs should be built for the WebClient with
+     * {@link GitHubRepositoryUris#forWebClient(WebClient, int)} unless both are built from the same base URL.
+     * @param webClient The WebClient to use when interacting with the GitHub service.
+     * @param report The report to record the outcome of each repository converge in.
+     * @param observationRegistry The registry to observe each request sent to the GitHub service with.
+     * @param scheduler The scheduler pacing the requests sent to the GitHub service.
+     * @param uris The URIs of the GitHub service endpoints.
+     */
+    public GitHubUserRepositoryService(WebClient webClient, GitHubConvergeReport report, ObservationRegistry observationRegistry,
+                                       GitHubRequestScheduler scheduler, GitHubRepositoryUris uris) {
         Assert.notNull(webClient, "The WebClient provided was null");
+        Assert.notNull(report, "The GitHubConvergeReport provided was null");
+        Assert.notNull(observationRegistry, "The ObservationRegistry provided was null");
+        Assert.notNull(scheduler, "The GitHubRequestScheduler provided was null");
+        Assert.notNull(uris, "The GitHubRepositoryUris provided was null");
 
         this.webClient = webClient;
+        this.report = report;
+        this.observationRegistry = observationRegistry;
+        this.scheduler = scheduler;
+        this.uris = uris;
     }
 
     /**
-     * Apply the configuration provided to the GitHub service.
+     * Apply the configuration provided to the GitHub service in the NORMAL priority lane.
      * @param repository The user repository details to apply.
      */
     public void applyState(GitHubUserRepository repository) {
-        Optional<GitHubUserRepository> serverRepoOpt = getServerRepository(repository.getOwner(), repository.getName());
-        if (serverRepoOpt.isEmpty()) {
-            createUserRepository(repository);
-        } else {
-            updateRepository(repository);
+        applyState(repository, GitHubRequestScheduler.Priority.NORMAL);
+    }
+
+    /**
+     * Apply the configuration provided to the GitHub service.  Only the requests needed to bring the repository
+     * in line with the configuration are sent: settings are combined into a single update, and the topics and
+     * branch protection are only updated when they differ.
+     * @param repository The user repository details to apply.
+     * @param priority The priority lane to send the requests in.
+     */
+    public void applyState(GitHubUserRepository repository, GitHubRequestScheduler.Priority priority) {
+        Converge converge = start(priority, repository);
+        try {
+            Optional<GitHubUserRepository> serverRepoOpt = getServerRepository(converge);
+            GitHubRepositoryConvergeRecord.Action action;
+            GitHubUserRepository serverRepo;
+            if (serverRepoOpt.isEmpty()) {
+                serverRepo = createUserRepository(converge, repository).orElseGet(GitHubUserRepository::new);
+                applyChanges(converge, repository, serverRepo);
+                action = GitHubRepositoryConvergeRecord.Action.CREATED;
+            } else {
+                serverRepo = serverRepoOpt.get();
+                action = applyChanges(converge, repository, serverRepo)
+                        ? GitHubRepositoryConvergeRecord.Action.UPDATED
+                        : GitHubRepositoryConvergeRecord.Action.UNCHANGED;
+            }
+            report.record(converge.toRecord(repository, action, null));
+        } catch (RuntimeException e) {
+            report.record(converge.toRecord(repository, GitHubRepositoryConvergeRecord.Action.FAILED, e.getMessage()));
+            throw e;
+        } finally {
+            inFlight.remove(converge);
+        }
+    }
+
+    /**
+     * List the repositories owned by the authenticated user.  Pages are only requested from the GitHub service as
+     * the repositories of the previous page are consumed, so large owners are never held in memory at once.
+     * Each listing is recorded in the converge report with the LISTED action, or FAILED, and the API calls made.
+     * @param priority The priority lane to send the requests in.
+     * @return The repositories, holding the owner, name and archived state of each.
+     */
+    public Flux<GitHubUserRepository> listUserRepositories(GitHubRequestScheduler.Priority priority) {
+        return Flux.defer(() -> {
+            Converge converge = new Converge(priority, null);
+            return Flux.<List<GitHubUserRepository>, Integer>generate(() -> 1, (page, sink) -> {
+                        if (page == 0) {
+                            sink.complete();
+                            return 0;
+                        }
+                        RepositoryPage repositoryPage = getUserRepositoryPage(converge, page);
+                        sink.next(repositoryPage.repositories);
+                        return repositoryPage.last ? 0 : page + 1;
+                    })
+                    .flatMapIterable(Function.identity(), 1)
+                    .doOnError(e -> report.record(converge.toListingRecord(GitHubRepositoryConvergeRecord.Action.FAILED, e.getMessage())))
+                    .doFinally(signal -> {
+                        if (signal != SignalType.ON_ERROR) {
+                            report.record(converge.toListingRecord(GitHubRepositoryConvergeRecord.Action.LISTED, null));
+                        }
+                    });
+        });
+    }
+
+    /**
+     * Archive a repository in the GitHub service, making it read-only.
+     * @param repository The repository to archive.
+     * @param priority The priority lane to send the request in.
+     */
+    public void archiveRepository(GitHubUserRepository repository, GitHubRequestScheduler.Priority priority) {
+        Converge converge = start(priority, repository);
+        try {
+            updateRepository(converge, ARCHIVE_BODY);
+            report.record(converge.toRecord(repository, GitHubRepositoryConvergeRecord.Action.ARCHIVED, null));
+        } catch (RuntimeException e) {
+            report.record(converge.toRecord(repository, GitHubRepositoryConvergeRecord.Action.FAILED, e.getMessage()));
+            throw e;
+        } finally {
+            inFlight.remove(converge);
+        }
+    }
+
+    /**
+     * Delete a repository from the GitHub service.  A repository that no longer exists is considered deleted.
+     * @param repository The repository to delete.
+     * @param priority The priority lane to send the request in.
+     */
+    public void deleteRepository(GitHubUserRepository repository, GitHubRequestScheduler.Priority priority) {
+        Converge converge = start(priority, repository);
+        try {
+            deleteServerRepository(converge);
+            report.record(converge.toRecord(repository, GitHubRepositoryConvergeRecord.Action.DELETED, null));
+        } catch (RuntimeException e) {
+            report.record(converge.toRecord(repository, GitHubRepositoryConvergeRecord.Action.FAILED, e.getMessage()));
+            throw e;
+        } finally {
+            inFlight.remove(converge);
         }
     }
 
     /**
-     * Retrieve the GitHub service details for the specified repository.
-     * @param owner The repository owner.
-     * @param name The name of the repository to retrieve.
+     * Retrieve a snapshot of the repository converges currently in progress.  The snapshot is taken without
+     * blocking the converges themselves.
+     * @return The converges in progress.
+     */
+    public List<GitHubConvergeInFlight> getInFlight() {
+        long nowNanos = System.nanoTime();
+        List<GitHubConvergeInFlight> snapshot = new ArrayList<>(inFlight.size());
+        for (Converge converge : inFlight) {
+            snapshot.add(new GitHubConvergeInFlight(converge.uris.fullName(), converge.priority,
+                    TimeUnit.NANOSECONDS.toMillis(nowNanos - converge.startNanos), converge.apiCalls));
+        }
+        return snapshot;
+    }
+
+    /**
+     * Start the converge of a repository, tracking it as in progress until removed.  A repository without an owner
+     * or name is recorded as FAILED without sending any request.
+     * @param priority The priority lane to send the requests in.
+     * @param repository The repository being converged.
+     * @return The converge.
+     * @throws BootOpsException if the repository has no owner or name.
+     */
+    private Converge start(GitHubRequestScheduler.Priority priority, GitHubUserRepository repository) {
+        Assert.notNull(repository, "The GitHubUserRepository provided was null");
+        if (repository.getOwner() == null || repository.getName() == null) {
+            BootOpsException e = new BootOpsException("Unable to converge a GitHub repository without "
+                    + (repository.getOwner() == null ? "a user" : "a name"), null);
+            report.record(new Converge(priority, null).toRecord(repository, GitHubRepositoryConvergeRecord.Action.FAILED, e.getMessage()));
+            throw e;
+        }
+
+        Converge converge = new Converge(priority, uris.of(repository.getOwner(), repository.getName()));
+        inFlight.add(converge);
+        return converge;
+    }
+
+    /**
+     * Apply the changes between the desired and current state of a repository.  An archived repository is
+     * read-only, so the repository update is sent first when it un-archives the repository and last otherwise,
+     * as archiving the repository makes it read-only.  Nothing is applied to a repository that stays archived,
+     * as GitHub rejects every change to it.
+     * @param converge The current converge.
+     * @param repository The desired state of the repository.
+     * @param serverRepo The current state of the repository in the GitHub service.
+     * @return True if any change was applied, otherwise false.
+     */
+    private boolean applyChanges(Converge converge, GitHubUserRepository repository, GitHubUserRepository serverRepo) {
+        GitHubRepositoryChanges changes = GitHubRepositoryChanges.between(repository, serverRepo);
+        if (Boolean.TRUE.equals(serverRepo.getArchived()) && !changes.isUnarchiving()) {
+            return false;
+        }
+        boolean changed = false;
+
+        boolean settingsFirst = changes.isUnarchiving();
+        if (changes.hasSettings() && settingsFirst) {
+            updateRepository(converge, toJson(changes.getSettings()));
+            changed = true;
+        }
+
+        if (changes.hasTopics()) {
+            replaceTopics(converge, changes.getTopics());
+            changed = true;
+        }
+
+        GitHubBranchProtection protection = repository.getBranchProtection();
+        if (protection != null) {
+            String branch = defaultBranchOf(converge, repository, serverRepo);
+            GitHubBranchProtection current = getBranchProtection(converge, branch).orElse(null);
+            if (!protection.isSatisfiedBy(current)) {
+                protectBranch(converge, branch, protection.toRequestBody(current));
+                changed = true;
+            }
+        }
+
+        if (changes.hasSettings() && !settingsFirst) {
+            updateRepository(converge, toJson(changes.getSettings()));
+            changed = true;
+        }
+        return changed;
+    }
+
+    /**
+     * Determine the default branch to protect: the desired default branch when provided, otherwise the default
+     * branch in the GitHub service.  The repository is retrieved again when the known state does not include it,
+     * e.g. when the creation response had no body.
+     * @param converge The current converge.
+     * @param repository The desired state of the repository.
+     * @param serverRepo The current state of the repository in the GitHub service.
+     * @return The default branch.
+     * @throws BootOpsException if the default branch could not be determined.
+     */
+    private String defaultBranchOf(Converge converge, GitHubUserRepository repository, GitHubUserRepository serverRepo) {
+        if (repository.getDefaultBranch() != null) {
+            return repository.getDefaultBranch();
+        }
+        if (serverRepo.getDefaultBranch() != null) {
+            return serverRepo.getDefaultBranch();
+        }
+        return getServerRepository(converge)
+                .map(GitHubUserRepository::getDefaultBranch)
+                .orElseThrow(() -> new BootOpsException("Unable to protect the default branch of the GitHub repository "
+                        + converge.uris.path() + " as its default branch is unknown", null));
+    }
+
+    /**
+     * Retrieve the GitHub service details for the repository of the current converge.
+     * @param converge The current converge.
      * @return Optionally, A GitHubUserRepository instance containing details from the GitHub service if found, otherwise empty.
      */
-    private Optional<GitHubUserRepository> getServerRepository(String owner, String name) {
+    private Optional<GitHubUserRepository> getServerRepository(Converge converge) {
         Optional <GitHubUserRepository> retVal = Optional.empty();
         try {
-            retVal = webClient.get()
-                    .uri("/repos/" + owner + "/" + name)
+            retVal = exchange(converge, Phase.LOOKUP, HttpMethod.GET, "/repos/{owner}/{name}", converge.uris.fullName(), webClient.get()
+                    .uri(converge.uris.repository())
                     .retrieve()
-                    .bodyToMono(GitHubUserRepository.class)
-                    .blockOptional();
+                    .toEntity(GitHubUserRepository.class));
         } catch (WebClientResponseException e) {
             if (!e.getStatusCode().equals(HttpStatus.NOT_FOUND)) {
-                throw new BootOpsException("Unable to retrieve the GitHub repository /repos/" + owner + "/" + name, e);
+                throw new BootOpsException("Unable to retrieve the GitHub repository " + converge.uris.path(), e);
             }
         }
         return retVal;
@@ -79,37 +345,303 @@ public class GitHubUserRepositoryService {
 
     /**
      * Create a new user repository in the GitHub service with the provided details.
+     * @param converge The current converge.
      * @param repository The details of the user repository to create.
      * @return Optionally, The service view of the created repository if repository was created, otherwise empty.
      */
-    private Optional<GitHubUserRepository> createUserRepository(GitHubUserRepository repository) {
+    private Optional<GitHubUserRepository> createUserRepository(Converge converge, GitHubUserRepository repository) {
         try {
-        return webClient.post()
-                .uri("/user/repos")
-                .body(Mono.just(repository), GitHubUserRepository.class)
+        return exchange(converge, Phase.WRITE, HttpMethod.POST, "/user/repos", converge.uris.fullName(), webClient.post()
+                .uri(uris.userRepositories())
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(toJson(GitHubRepositoryChanges.creationOf(repository)))
                 .retrieve()
-                .bodyToMono(GitHubUserRepository.class)
-                .blockOptional();
+                .toEntity(GitHubUserRepository.class));
         } catch (WebClientResponseException e) {
             throw new BootOpsException("Unable to create the GitHub repository", e);
         }
     }
 
     /**
-     * Update the details for the provided user repository in the GitHub service.
-     * @param repository The details of the user repository to create.
-     * @return Optionally, The service view of the created repository if repository was created, otherwise empty.
+     * Update the provided settings of the repository of the current converge in the GitHub service.
+     * @param converge The current converge.
+     * @param settings The serialized settings that differ from the GitHub service.
      */
-    private Optional<GitHubUserRepository> updateRepository(GitHubUserRepository repository) {
+    private void updateRepository(Converge converge, byte[] settings) {
         try {
-        return webClient.patch()
-                .uri("/repos/" + repository.getOwner() + "/" + repository.getName())
-                .body(Mono.just(repository), GitHubUserRepository.class)
+        exchange(converge, Phase.WRITE, HttpMethod.PATCH, "/repos/{owner}/{name}", converge.uris.fullName(), webClient.patch()
+                .uri(converge.uris.repository())
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(settings)
                 .retrieve()
-                .bodyToMono(GitHubUserRepository.class)
-                .blockOptional();
+                .toBodilessEntity());
+        } catch (WebClientResponseException e) {
+            throw new BootOpsException("Unable to update the GitHub repository " + converge.uris.path(), e);
+        }
+    }
+
+    /**
+     * Delete the repository of the current converge from the GitHub service.
+     * @param converge The current converge.
+     */
+    private void deleteServerRepository(Converge converge) {
+        try {
+            exchange(converge, Phase.WRITE, HttpMethod.DELETE, "/repos/{owner}/{name}", converge.uris.fullName(), webClient.delete()
+                    .uri(converge.uris.repository())
+                    .retrieve()
+                    .toBodilessEntity());
+        } catch (WebClientResponseException e) {
+            if (!e.getStatusCode().equals(HttpStatus.NOT_FOUND)) {
+                throw new BootOpsException("Unable to delete the GitHub repository " + converge.uris.path(), e);
+            }
+        }
+    }
+
+    /**
+     * Retrieve a page of the repositories owned by the authenticated user from the GitHub service.
+     * @param converge The current converge.
+     * @param page The number of the page, starting from 1.
+     * @return The page of repositories.
+     */
+    private RepositoryPage getUserRepositoryPage(Converge converge, int page) {
+        try {
+            return exchange(converge, Phase.LOOKUP, HttpMethod.GET, "/user/repos", "user", webClient.get()
+                    .uri(uris.userRepositoriesPage(PAGE_SIZE, page))
+                    .retrieve()
+                    .toEntity(JsonNode.class)
+                    .map(entity -> new ResponseEntity<>(RepositoryPage.fromResponse(entity), entity.getHeaders(), entity.getStatusCode())))
+                    .orElseGet(() -> new RepositoryPage(Collections.emptyList(), true));
+        } catch (WebClientResponseException e) {
+            throw new BootOpsException("Unable to list the GitHub repositories /user/repos page " + page, e);
+        }
+    }
+
+    /**
+     * Replace the topics of the repository of the current converge in the GitHub service.
+     * @param converge The current converge.
+     * @param topics The topics to apply.
+     */
+    private void replaceTopics(Converge converge, List<String> topics) {
+        try {
+            exchange(converge, Phase.WRITE, HttpMethod.PUT, "/repos/{owner}/{name}/topics", converge.uris.fullName(), webClient.put()
+                    .uri(converge.uris.topics())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue(toJson(Collections.singletonMap("names", topics)))
+                    .retrieve()
+                    .toBodilessEntity());
+        } catch (WebClientResponseException e) {
+            throw new BootOpsException("Unable to update the topics of the GitHub repository " + converge.uris.path(), e);
+        }
+    }
+
+    /**
+     * Retrieve the protection of a branch of the repository of the current converge from the GitHub service.
+     * @param converge The current converge.
+     * @param branch The branch to retrieve the protection of.
+     * @return Optionally, the branch protection if the branch is protected, otherwise empty.
+     */
+    private Optional<GitHubBranchProtection> getBranchProtection(Converge converge, String branch) {
+        URI uri = converge.uris.protection(branch);
+        try {
+            return exchange(converge, Phase.LOOKUP, HttpMethod.GET, "/repos/{owner}/{name}/branches/{branch}/protection", converge.uris.fullName(), webClient.get()
+                    .uri(uri)
+                    .retrieve()
+                    .toEntity(JsonNode.class))
+                    .map(GitHubBranchProtection::fromResponse);
+        } catch (WebClientResponseException e) {
+            if (!e.getStatusCode().equals(HttpStatus.NOT_FOUND)) {
+                throw new BootOpsException("Unable to retrieve the GitHub branch protection " + uri.getRawPath(), e);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Replace the protection of a branch of the repository of the current converge in the GitHub service.
+     * @param converge The current converge.
+     * @param branch The branch to protect.
+     * @param protection The request body of the protection to apply.
+     */
+    private void protectBranch(Converge converge, String branch, Map<String, Object> protection) {
+        URI uri = converge.uris.protection(branch);
+        try {
+            exchange(converge, Phase.WRITE, HttpMethod.PUT, "/repos/{owner}/{name}/branches/{branch}/protection", converge.uris.fullName(), webClient.put()
+                    .uri(uri)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue(toJson(protection))
+                    .retrieve()
+                    .toBodilessEntity());
         } catch (WebClientResponseException e) {
-            throw new BootOpsException("Unable to update the GitHub repository /repos/" + repository.getOwner() + "/" + repository.getName(), e);
+            throw new BootOpsException("Unable to update the GitHub branch protection " + uri.getRawPath(), e);
+        }
+    }
+
+    /**
+     * Send a request to the GitHub service within an observation of the request.  The observation is the child of
+     * the current observation, if any, and is made available to the reactive chain through the Reactor context.
+     * The request waits for a permit in the lane of the current converge, and is retried when rejected by a GitHub
+     * rate limit.  The time spent and the API calls made are added to the current converge.
+     * @param converge The current converge.
+     * @param phase The converge phase the request belongs to.
+     * @param method The HTTP method of the request.
+     * @param uriTemplate The URI template of the request, used as a low cardinality key value.
+     * @param target The repository, or other resource, the request is for.
+     * @param request The request to send.
+     * @return Optionally, the response body if present, otherwise empty.
+     */
+    private <T> Optional<T> exchange(Converge converge, Phase phase, HttpMethod method, String uriTemplate,
+                                     String target, Mono<ResponseEntity<T>> request) {
+        Observation observation = Observation.createNotStarted(REQUEST_OBSERVATION_NAME, observationRegistry)
+                .parentObservation(observationRegistry.getCurrentObservation())
+                .contextualName(method.name() + " " + uriTemplate)
+                .lowCardinalityKeyValue("http.method", method.name())
+                .lowCardinalityKeyValue("http.uri", uriTemplate)
+                .lowCardinalityKeyValue("github.lane", converge.priority.tag())
+                .highCardinalityKeyValue("github.repository", target)
+                .start();
+        long start = System.nanoTime();
+        long waitNanos = 0;
+        int retries = 0;
+        try (Observation.Scope scope = observation.openScope()) {
+            while (true) {
+                try (GitHubRequestScheduler.Permit permit = scheduler.acquire(converge.priority)) {
+                    waitNanos += permit.getWaitNanos();
+                    converge.apiCalls++;
+                    ResponseEntity<T> response = request
+                            .contextWrite(context -> context.put(ObservationThreadLocalAccessor.KEY, observation))
+                            .block();
+                    if (response != null) {
+                        scheduler.onResponse(response.getHeaders());
+                    }
+                    observation.lowCardinalityKeyValue("http.status", response == null ? "NONE" : String.valueOf(response.getStatusCodeValue()));
+                    return Optional.ofNullable(response).map(HttpEntity::getBody);
+                } catch (WebClientResponseException e) {
+                    scheduler.onResponse(e.getHeaders());
+                    if (isRateLimited(e) && retries < scheduler.getMaxRetries()) {
+                        scheduler.onRateLimited(e.getHeaders());
+                        retries++;
+                        continue;
+                    }
+                    observation.lowCardinalityKeyValue("http.status", String.valueOf(e.getRawStatusCode()));
+                    if (e.getRawStatusCode() != HttpStatus.NOT_FOUND.value()) {
+                        observation.error(e);
+                    }
+                    throw e;
+                }
+            }
+        } catch (RuntimeException e) {
+            if (!(e instanceof WebClientResponseException)) {
+                observation.lowCardinalityKeyValue("http.status", "CLIENT_ERROR");
+                observation.error(e);
+            }
+            throw e;
+        } finally {
+            observation.highCardinalityKeyValue("github.retry.count", String.valueOf(retries));
+            observation.highCardinalityKeyValue("github.ratelimit.wait", String.valueOf(TimeUnit.NANOSECONDS.toMillis(waitNanos)));
+            converge.add(phase, System.nanoTime() - start - waitNanos, waitNanos);
+            observation.stop();
+        }
+    }
+
+    /**
+     * Serialize a request body.  Bodies are sent as bytes, so the WebClient does not resolve a JSON encoder and
+     * serializer for each request.
+     * @param body The request body.
+     * @return The serialized request body.
+     */
+    static byte[] toJson(Object body) {
+        try {
+            return JSON_WRITER.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new BootOpsException("Unable to serialize the GitHub request body", e);
+        }
+    }
+
+    /**
+     * Determine whether GitHub rejected a request for exceeding a primary or secondary rate limit.
+     * @param e The rejected request.
+     * @return True if the request was rate limited, otherwise false.
+     */
+    private static boolean isRateLimited(WebClientResponseException e) {
+        if (e.getRawStatusCode() == HttpStatus.TOO_MANY_REQUESTS.value()) {
+            return true;
+        }
+        return e.getRawStatusCode() == HttpStatus.FORBIDDEN.value()
+                && ("0".equals(e.getHeaders().getFirst("X-RateLimit-Remaining"))
+                    || e.getHeaders().getFirst(HttpHeaders.RETRY_AFTER) != null);
+    }
+
+    /**
+     * The phases of a repository converge.
+     */
+    private enum Phase {
+        LOOKUP,
+        WRITE
+    }
+
+    /**
+     * RepositoryPage is a single page of the repositories listed by the GitHub service.
+     */
+    private static class RepositoryPage {
+        private final List<GitHubUserRepository> repositories;
+        private final boolean last;
+
+        RepositoryPage(List<GitHubUserRepository> repositories, boolean last) {
+            this.repositories = repositories;
+            this.last = last;
+        }
+
+        static RepositoryPage fromResponse(ResponseEntity<JsonNode> response) {
+            List<GitHubUserRepository> repositories = new ArrayList<>();
+            JsonNode body = response.getBody();
+            if (body != null) {
+                for (JsonNode node : body) {
+                    GitHubUserRepository repository = new GitHubUserRepository();
+                    repository.setUser(node.path("owner").path("login").asText());
+                    repository.setName(node.path("name").asText());
+                    repository.setArchived(node.path("archived").asBoolean());
+                    repositories.add(repository);
+                }
+            }
+            String link = response.getHeaders().getFirst(HttpHeaders.LINK);
+            return new RepositoryPage(repositories, link == null || !link.contains("rel=\"next\""));
+        }
+    }
+
+    /**
+     * Converge holds the lane and URIs of a single repository converge and accumulates the time spent in each of its phases.
+     */
+    private static class Converge {
+        private final long startNanos = System.nanoTime();
+        private final GitHubRequestScheduler.Priority priority;
+        private final GitHubRepositoryUris.RepositoryUris uris;
+        private long queueNanos;
+        private long lookupNanos;
+        private long writeNanos;
+        private volatile int apiCalls;
+
+        Converge(GitHubRequestScheduler.Priority priority, GitHubRepositoryUris.RepositoryUris uris) {
+            this.priority = priority;
+            this.uris = uris;
+        }
+
+        void add(Phase phase, long nanos, long waitNanos) {
+            queueNanos += waitNanos;
+            if (phase == Phase.LOOKUP) {
+                lookupNanos += nanos;
+            } else {
+                writeNanos += nanos;
+            }
+        }
+
+        GitHubRepositoryConvergeRecord toRecord(GitHubUserRepository repository, GitHubRepositoryConvergeRecord.Action action, String error) {
+            return new GitHubRepositoryConvergeRecord(repository.getOwner(), repository.getName(), action,
+                    System.nanoTime() - startNanos, queueNanos, lookupNanos, writeNanos, apiCalls, error);
+        }
+
+        GitHubRepositoryConvergeRecord toListingRecord(GitHubRepositoryConvergeRecord.Action action, String error) {
+            return new GitHubRepositoryConvergeRecord(null, null, action,
+                    System.nanoTime() - startNanos, queueNanos, lookupNanos, writeNanos, apiCalls, error);
         }
     }
 }
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.kirksc1.bootops.github.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GitHubBranchProtectionTest {
+
+    @Test
+    public void testToRequestBody_whenNothingSet_thenProtectionTurnedOff() {
+        Map<String, Object> body = new GitHubBranchProtection().toRequestBody();
+
+        assertNull(body.get("required_status_checks"));
+        assertEquals(false, body.get("enforce_admins"));
+        assertNull(body.get("required_pull_request_reviews"));
+        assertTrue(body.containsKey("restrictions"));
+        assertNull(body.get("restrictions"));
+        assertEquals(false, body.get("allow_force_pushes"));
+        assertEquals(false, body.get("allow_deletions"));
+    }
+
+    @Test
+    public void testToRequestBody_whenStatusChecksAndReviewsSet_thenNestedObjectsBuilt() {
+        GitHubBranchProtection protection = new GitHubBranchProtection();
+        protection.setRequiredStatusChecks(Arrays.asList("test", "build"));
+        protection.setStrictStatusChecks(true);
+        protection.setRequiredApprovingReviewCount(2);
+        protection.setDismissStaleReviews(true);
+
+        Map<String, Object> body = protection.toRequestBody();
+
+        Map<?, ?> statusChecks = (Map<?, ?>) body.get("required_status_checks");
+        assertEquals(true, statusChecks.get("strict"));
+        assertEquals(Arrays.asList("build", "test"), statusChecks.get("contexts"));
+        Map<?, ?> reviews = (Map<?, ?>) body.get("required_pull_request_reviews");
+        assertEquals(true, reviews.get("dismiss_stale_reviews"));
+        assertEquals(false, reviews.get("require_code_owner_reviews"));
+        assertEquals(2, reviews.get("required_approving_review_count"));
+    }
+
+    @Test
+    public void testIsSatisfiedBy_whenCurrentNull_thenFalse() {
+        assertFalse(new GitHubBranchProtection().isSatisfiedBy(null));
+    }
+
+    @Test
+    public void testIsSatisfiedBy_whenResponseEquivalent_thenTrue() throws Exception {
+        GitHubBranchProtection protection = new GitHubBranchProtection();
+        protection.setRequiredStatusChecks(Arrays.asList("test", "build"));
+        protection.setRequiredApprovingReviewCount(1);
+        protection.setEnforceAdmins(true);
+
+        GitHubBranchProtection current = GitHubBranchProtection.fromResponse(new ObjectMapper().readTree(
+                "{\"required_status_checks\":{\"strict\":false,\"contexts\":[\"build\",\"test\"]},"
+                        + "\"required_pull_request_reviews\":{\"dismiss_stale_reviews\":false,\"require_code_owner_reviews\":false,\"required_approving_review_count\":1},"
+                        + "\"enforce_admins\":{\"enabled\":true},"
+                        + "\"allow_force_pushes\":{\"enabled\":false},"
+                        + "\"allow_deletions\":{\"enabled\":false}}"));
+
+        assertTrue(protection.isSatisfiedBy(current));
+    }
+
+    @Test
+    public void testIsSatisfiedBy_whenResponseDiffers_thenFalse() throws Exception {
+        GitHubBranchProtection protection = new GitHubBranchProtection();
+        protection.setRequiredApprovingReviewCount(2);
+
+        GitHubBranchProtection current = GitHubBranchProtection.fromResponse(new ObjectMapper().readTree(
+                "{\"required_pull_request_reviews\":{\"required_approving_review_count\":1}}"));
+
+        assertFalse(protection.isSatisfiedBy(current));
+    }
+
+    @Test
+    public void testToRequestBody_whenCurrentPushesRestricted_thenRestrictionsKept() throws Exception {
+        GitHubBranchProtection current = GitHubBranchProtection.fromResponse(new ObjectMapper().readTree(
+                "{\"restrictions\":{\"users\":[{\"login\":\"octocat\"}],\"teams\":[{\"slug\":\"ops\"},{\"slug\":\"dev\"}],\"apps\":[]}}"));
+
+        Map<String, Object> body = new GitHubBranchProtection().toRequestBody(current);
+
+        Map<String, Object> restrictions = new LinkedHashMap<>();
+        restrictions.put("users", Collections.singletonList("octocat"));
+        restrictions.put("teams", Arrays.asList("dev", "ops"));
+        restrictions.put("apps", Collections.emptyList());
+        assertEquals(restrictions, body.get("restrictions"));
+    }
+
+    @Test
+    public void testIsSatisfiedBy_whenOnlyCurrentPushesRestricted_thenTrue() throws Exception {
+        GitHubBranchProtection current = GitHubBranchProtection.fromResponse(new ObjectMapper().readTree(
+                "{\"restrictions\":{\"users\":[{\"login\":\"octocat\"}],\"teams\":[],\"apps\":[]}}"));
+
+        assertTrue(new GitHubBranchProtection().isSatisfiedBy(current));
+    }
+}
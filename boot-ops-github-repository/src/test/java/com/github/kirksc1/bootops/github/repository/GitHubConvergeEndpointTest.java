@@ -0,0 +1,150 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.kirksc1.bootops.github.repository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+
+import java.time.Duration;
+import java.util.Collections;
+
+import static com.github.kirksc1.bootops.github.repository.Await.awaitTrue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GitHubConvergeEndpointTest {
+
+    private GitHubSimulator simulator;
+    private GitHubConvergeReport report;
+    private GitHubRequestScheduler scheduler;
+    private GitHubRepositoryUris uris;
+    private GitHubUserRepositoryService service;
+    private GitHubConvergeEndpoint endpoint;
+
+    @BeforeEach
+    void setUp() {
+        simulator = new GitHubSimulator("myuser").start();
+        simulator.addRepository("myuser", "myrepo", Collections.emptyMap());
+        report = new GitHubConvergeReport();
+        scheduler = new GitHubRequestScheduler(new GitHubServiceProperties.Scheduler(), new SimpleMeterRegistry());
+        uris = simulator.newUris();
+        service = simulator.newService(report, scheduler, uris);
+        endpoint = new GitHubConvergeEndpoint(service, scheduler, uris, report);
+    }
+
+    @AfterEach
+    void tearDown() {
+        simulator.close();
+    }
+
+    @Test
+    public void testConstructor_whenServiceNull_thenThrowIllegalArgumentException() {
+        IllegalArgumentException thrown = Assertions.assertThrows(IllegalArgumentException.class, () -> {
+            new GitHubConvergeEndpoint(null, scheduler, uris, report);
+        });
+
+        Assertions.assertEquals("The GitHubUserRepositoryService provided was null", thrown.getMessage());
+    }
+
+    @Test
+    public void testConstructor_whenReportNull_thenThrowIllegalArgumentException() {
+        IllegalArgumentException thrown = Assertions.assertThrows(IllegalArgumentException.class, () -> {
+            new GitHubConvergeEndpoint(service, scheduler, uris, null);
+        });
+
+        Assertions.assertEquals("The GitHubConvergeReport provided was null", thrown.getMessage());
+    }
+
+    @Test
+    public void testState_whenConvergeInProgress_thenInFlightRepositoryAndActiveLaneReported() throws Exception {
+        simulator.setLatency(Duration.ofMillis(300));
+
+        Thread converge = new Thread(() -> service.applyState(repository("myrepo")));
+        converge.start();
+        awaitTrue(() -> !endpoint.state().getInFlight().isEmpty());
+
+        GitHubConvergeEndpoint.ConvergeStateDescriptor state = endpoint.state();
+        assertEquals(1, state.getInFlight().size());
+        assertEquals("myuser/myrepo", state.getInFlight().get(0).getRepository());
+        assertEquals(GitHubRequestScheduler.Priority.NORMAL, state.getInFlight().get(0).getLane());
+        assertEquals(3, state.getLanes().size());
+        assertEquals(0, state.getLanes().get("interactive").getActive());
+
+        converge.join(5000);
+        state = endpoint.state();
+        assertTrue(state.getInFlight().isEmpty());
+        assertEquals(0, state.getLanes().get("normal").getActive());
+        assertEquals(1, state.getSlowest().size());
+        assertEquals("myrepo", state.getSlowest().get(0).getName());
+    }
+
+    @Test
+    public void testState_whenConverged_thenRateLimitAndUriCacheReported() {
+        service.applyState(repository("myrepo"));
+        service.applyState(repository("myrepo"));
+
+        GitHubConvergeEndpoint.ConvergeStateDescriptor state = endpoint.state();
+
+        assertEquals(5000, state.getRateLimit().getLimit());
+        assertTrue(state.getRateLimit().getRemaining() < 5000);
+        assertFalse(state.getRateLimit().isPaused());
+        assertEquals(1, state.getUriCache().getSize());
+        assertEquals(1, state.getUriCache().getMisses());
+        assertEquals(1, state.getUriCache().getHits());
+        assertEquals(0.5, state.getUriCache().getHitRatio());
+    }
+
+    @Test
+    public void testAction_whenPauseAndResume_thenSchedulerPausedAndResumed() {
+        endpoint.action(GitHubConvergeEndpoint.PAUSE);
+        assertTrue(scheduler.isPaused());
+        assertTrue(endpoint.state().getRateLimit().isPaused());
+
+        endpoint.action(GitHubConvergeEndpoint.RESUME);
+        assertFalse(scheduler.isPaused());
+    }
+
+    @Test
+    public void testAction_whenFlush_thenUriCacheCleared() {
+        service.applyState(repository("myrepo"));
+        assertEquals(1, uris.getSize());
+
+        endpoint.action(GitHubConvergeEndpoint.FLUSH);
+
+        assertEquals(0, uris.getSize());
+    }
+
+    @Test
+    public void testAction_whenUnknown_thenThrowInvalidEndpointRequestException() {
+        InvalidEndpointRequestException thrown = Assertions.assertThrows(InvalidEndpointRequestException.class, () -> {
+            endpoint.action("restart");
+        });
+
+        Assertions.assertEquals("Unknown action restart", thrown.getMessage());
+    }
+
+    private static GitHubUserRepository repository(String name) {
+        GitHubUserRepository repository = new GitHubUserRepository();
+        repository.setUser("myuser");
+        repository.setName(name);
+        return repository;
+    }
+}
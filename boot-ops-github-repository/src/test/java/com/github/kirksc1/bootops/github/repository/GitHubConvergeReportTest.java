@@ -0,0 +1,122 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.kirksc1.bootops.github.repository;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GitHubConvergeReportTest {
+
+    @Test
+    public void testConstructor_whenWriterNull_thenThrowIllegalArgumentException() {
+        IllegalArgumentException thrown = Assertions.assertThrows(IllegalArgumentException.class, () -> {
+            new GitHubConvergeReport(null);
+        });
+
+        Assertions.assertEquals("The Writer provided was null", thrown.getMessage());
+    }
+
+    @Test
+    public void testRecord_whenWriterProvided_thenRecordStreamedAsNdjson() {
+        StringWriter writer = new StringWriter();
+        GitHubConvergeReport report = new GitHubConvergeReport(writer);
+
+        report.record(new GitHubRepositoryConvergeRecord("myuser", "myrepo", GitHubRepositoryConvergeRecord.Action.CREATED, 30, 0, 10, 20, 2, null));
+        report.record(new GitHubRepositoryConvergeRecord("myuser", "other", GitHubRepositoryConvergeRecord.Action.FAILED, 5, 0, 5, 0, 1, "boom"));
+
+        String[] lines = writer.toString().split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("{\"type\":\"repository\",\"owner\":\"myuser\",\"name\":\"myrepo\",\"action\":\"CREATED\",\"totalNanos\":30,\"queueNanos\":0,\"lookupNanos\":10,\"writeNanos\":20,\"apiCalls\":2}", lines[0]);
+        assertEquals("{\"type\":\"repository\",\"owner\":\"myuser\",\"name\":\"other\",\"action\":\"FAILED\",\"totalNanos\":5,\"queueNanos\":0,\"lookupNanos\":5,\"writeNanos\":0,\"apiCalls\":1,\"error\":\"boom\"}", lines[1]);
+    }
+
+    @Test
+    public void testSummary_whenRecordsAdded_thenCountsAndPercentilesSummarized() {
+        GitHubConvergeReport report = new GitHubConvergeReport();
+        for (int i = 1; i <= 100; i++) {
+            report.record(new GitHubRepositoryConvergeRecord("myuser", "repo" + i, GitHubRepositoryConvergeRecord.Action.UPDATED, i, 0, i, 0, 2, null));
+        }
+        report.record(new GitHubRepositoryConvergeRecord("myuser", "new", GitHubRepositoryConvergeRecord.Action.CREATED, 1, 0, 1, 0, 2, null));
+
+        GitHubConvergeSummary summary = report.summary();
+
+        assertEquals(101, summary.getRepositories());
+        assertEquals(202, summary.getApiCalls());
+        assertEquals(100L, summary.getActions().get(GitHubRepositoryConvergeRecord.Action.UPDATED));
+        assertEquals(1L, summary.getActions().get(GitHubRepositoryConvergeRecord.Action.CREATED));
+        assertEquals(0L, summary.getActions().get(GitHubRepositoryConvergeRecord.Action.FAILED));
+        assertEquals(100, summary.getTotal().getMax());
+        assertTrue(summary.getTotal().getP50() <= summary.getTotal().getP95());
+        assertTrue(summary.getTotal().getP95() <= summary.getTotal().getP99());
+        assertEquals(0, summary.getWrite().getP99());
+    }
+
+    @Test
+    public void testRecord_whenListingRecorded_thenOnlyApiCallsAndActionCounted() {
+        StringWriter writer = new StringWriter();
+        GitHubConvergeReport report = new GitHubConvergeReport(writer);
+
+        report.record(new GitHubRepositoryConvergeRecord(null, null, GitHubRepositoryConvergeRecord.Action.LISTED, 30, 0, 30, 0, 3, null));
+
+        GitHubConvergeSummary summary = report.summary();
+        assertEquals(0, summary.getRepositories());
+        assertEquals(3, summary.getApiCalls());
+        assertEquals(1L, summary.getActions().get(GitHubRepositoryConvergeRecord.Action.LISTED));
+        assertTrue(report.getSlowestRecent(10).isEmpty());
+        assertEquals("{\"type\":\"listing\",\"action\":\"LISTED\",\"totalNanos\":30,\"queueNanos\":0,\"lookupNanos\":30,\"writeNanos\":0,\"apiCalls\":3}\n", writer.toString());
+    }
+
+    @Test
+    public void testGetSlowestRecent_whenMoreRecordsThanRingSize_thenSlowestOfMostRecentReturned() {
+        GitHubConvergeReport report = new GitHubConvergeReport();
+        report.record(new GitHubRepositoryConvergeRecord("myuser", "oldest", GitHubRepositoryConvergeRecord.Action.UPDATED, 1_000_000, 0, 0, 0, 1, null));
+        for (int i = 1; i <= 300; i++) {
+            report.record(new GitHubRepositoryConvergeRecord("myuser", "repo" + i, GitHubRepositoryConvergeRecord.Action.UPDATED, i, 0, i, 0, 1, null));
+        }
+
+        List<GitHubRepositoryConvergeRecord> slowest = report.getSlowestRecent(3);
+
+        assertEquals(3, slowest.size());
+        assertEquals("repo300", slowest.get(0).getName());
+        assertEquals("repo299", slowest.get(1).getName());
+        assertEquals("repo298", slowest.get(2).getName());
+        assertEquals(256, report.getSlowestRecent(1000).size());
+    }
+
+    @Test
+    public void testGetSlowestRecent_whenNoRecords_thenEmpty() {
+        assertTrue(new GitHubConvergeReport().getSlowestRecent(10).isEmpty());
+    }
+
+    @Test
+    public void testClose_whenRecordsAdded_thenSummaryLineWritten() throws Exception {
+        StringWriter writer = new StringWriter();
+        GitHubConvergeReport report = new GitHubConvergeReport(writer);
+        report.record(new GitHubRepositoryConvergeRecord("myuser", "myrepo", GitHubRepositoryConvergeRecord.Action.UPDATED, 30, 0, 10, 20, 2, null));
+
+        report.close();
+
+        String[] lines = writer.toString().split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[1].startsWith("{\"type\":\"summary\",\"repositories\":1,\"apiCalls\":2,"));
+    }
+}
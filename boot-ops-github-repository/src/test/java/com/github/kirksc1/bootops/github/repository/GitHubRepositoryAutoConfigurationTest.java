@@ -19,11 +19,19 @@ import com.github.kirksc1.bootops.core.AttributeRetriever;
 import com.github.kirksc1.bootops.core.AttributeType;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.boot.autoconfigure.AutoConfigurations;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
 import org.springframework.web.reactive.function.client.WebClient;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.mockito.Mockito.mock;
+
 class GitHubRepositoryAutoConfigurationTest {
 
     private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
@@ -36,7 +44,143 @@ class GitHubRepositoryAutoConfigurationTest {
             Assertions.assertThat(context).hasSingleBean(AttributeRetriever.class);
             Assertions.assertThat(context).hasSingleBean(GitHubServiceProperties.class);
             Assertions.assertThat(context).hasSingleBean(WebClient.class);
+            Assertions.assertThat(context).hasSingleBean(GitHubConvergeReport.class);
+            Assertions.assertThat(context).hasSingleBean(GitHubRequestScheduler.class);
+            Assertions.assertThat(context).hasSingleBean(GitHubRepositoryUris.class);
             Assertions.assertThat(context).hasSingleBean(GitHubUserRepositoryService.class);
+            Assertions.assertThat(context).hasSingleBean(GitHubUserRepositoryConvergeInitiatedEventListener.class);
+            Assertions.assertThat(context).doesNotHaveBean(GitHubRepositoryPruner.class);
+        });
+    }
+
+    @Test
+    public void testConfiguration_whenConvergeEndpointExposed_thenEndpointAddedToContext() {
+        this.contextRunner
+                .withConfiguration(AutoConfigurations.of(GitHubConvergeEndpointAutoConfiguration.class))
+                .withPropertyValues("management.endpoints.web.exposure.include=githubconverge")
+                .run((context) -> {
+                    Assertions.assertThat(context).hasSingleBean(GitHubConvergeEndpoint.class);
+                });
+    }
+
+    @Test
+    public void testConfiguration_whenConvergeEndpointNotExposed_thenEndpointNotAddedToContext() {
+        this.contextRunner
+                .withConfiguration(AutoConfigurations.of(GitHubConvergeEndpointAutoConfiguration.class))
+                .run((context) -> {
+                    Assertions.assertThat(context).doesNotHaveBean(GitHubConvergeEndpoint.class);
+                });
+    }
+
+    @Test
+    public void testConfiguration_whenPruneEnabled_thenPrunerAddedToContext() {
+        this.contextRunner
+                .withPropertyValues("github.service.prune.enabled=true", "github.service.prune.mode=delete")
+                .run((context) -> {
+                    Assertions.assertThat(context).hasSingleBean(GitHubRepositoryPruner.class);
+                    Assertions.assertThat(context.getBean(GitHubServiceProperties.class).getPrune().getMode())
+                            .isEqualTo(GitHubRepositoryPruner.Mode.DELETE);
+                });
+    }
+
+    @Test
+    public void testConfiguration_whenReportPathProvided_thenSummaryWrittenToFileOnClose(@TempDir Path directory) throws Exception {
+        Path reportFile = directory.resolve("converge.ndjson");
+        this.contextRunner
+                .withPropertyValues("github.service.report.path=" + reportFile)
+                .run((context) -> {
+                    context.getBean(GitHubConvergeReport.class).record(new GitHubRepositoryConvergeRecord(
+                            "myuser", "myrepo", GitHubRepositoryConvergeRecord.Action.CREATED, 3, 0, 1, 2, 2, null));
+                });
+
+        Assertions.assertThat(Files.readString(reportFile))
+                .contains("\"type\":\"repository\"")
+                .contains("\"type\":\"summary\"");
+    }
+
+    @Test
+    public void testConfiguration_whenDisabled_thenNoBeansAddedToContext() {
+        this.contextRunner
+                .withPropertyValues("github.service.enabled=false")
+                .run((context) -> {
+                    Assertions.assertThat(context).doesNotHaveBean(AttributeType.class);
+                    Assertions.assertThat(context).doesNotHaveBean(AttributeRetriever.class);
+                    Assertions.assertThat(context).doesNotHaveBean(GitHubServiceProperties.class);
+                    Assertions.assertThat(context).doesNotHaveBean(WebClient.class);
+                    Assertions.assertThat(context).doesNotHaveBean(GitHubUserRepositoryService.class);
+                    Assertions.assertThat(context).doesNotHaveBean(GitHubUserRepositoryConvergeInitiatedEventListener.class);
+                });
+    }
+
+    @Test
+    public void testConfiguration_whenServiceProvided_thenProvidedServiceUsed() {
+        this.contextRunner
+                .withUserConfiguration(CustomServiceConfiguration.class)
+                .run((context) -> {
+                    Assertions.assertThat(context).hasSingleBean(GitHubUserRepositoryService.class);
+                    Assertions.assertThat(context).getBean(GitHubUserRepositoryService.class)
+                            .isSameAs(context.getBean(CustomServiceConfiguration.class).service);
+                });
+    }
+
+    @Test
+    public void testConfiguration_whenCustomWebClientWithoutBaseUrl_thenRequestsSentToWebClientBaseUrl() {
+        try (GitHubSimulator simulator = new GitHubSimulator("myuser").start()) {
+            this.contextRunner
+                    .withBean("gitHubWebClient", WebClient.class, () -> WebClient.create(simulator.getBaseUrl()))
+                    .run((context) -> {
+                        context.getBean(GitHubUserRepositoryService.class).applyState(repository("myrepo"));
+
+                        Assertions.assertThat(simulator.getRepository("myuser", "myrepo")).isNotNull();
+                    });
+        }
+    }
+
+    @Test
+    public void testConfiguration_whenCustomWebClientWithOtherBaseUrl_thenRequestsSentToWebClientBaseUrl() {
+        try (GitHubSimulator simulator = new GitHubSimulator("myuser").start()) {
+            this.contextRunner
+                    .withBean("gitHubWebClient", WebClient.class, () -> WebClient.create(simulator.getBaseUrl()))
+                    .withPropertyValues("github.service.base-url=http://127.0.0.1:1/")
+                    .run((context) -> {
+                        context.getBean(GitHubUserRepositoryService.class).applyState(repository("myrepo"));
+
+                        Assertions.assertThat(simulator.getRepository("myuser", "myrepo")).isNotNull();
+                    });
+        }
+    }
+
+    @Test
+    public void testConfiguration_whenStarted_thenWebClientNotCreatedUntilFirstUse() {
+        this.contextRunner.run((context) -> {
+            Assertions.assertThat(context.getBeanFactory().containsSingleton("gitHubWebClient")).isFalse();
+
+            context.getBean("gitHubWebClient");
+
+            Assertions.assertThat(context.getBeanFactory().containsSingleton("gitHubWebClient")).isTrue();
+        });
+    }
+
+    @Test
+    public void testConfiguration_whenRefreshed_thenLazyWebClientNotInstantiatedByDependents() {
+        this.contextRunner.run((context) -> {
+            Assertions.assertThat(context.getBeanFactory().getBeanDefinition("gitHubWebClient").isLazyInit()).isTrue();
+            Assertions.assertThat(context.getBeanFactory().containsSingleton("gitHubUserRepositoryService")).isTrue();
+
+            Assertions.assertThat(context.getBeanFactory().containsSingleton("gitHubWebClient")).isFalse();
+        });
+    }
+
+    @Test
+    public void testConfiguration_whenStarted_thenNoWebClientOrReactorNettyResourcesCreated() {
+        this.contextRunner.run((context) -> {
+            for (String name : context.getBeanFactory().getSingletonNames()) {
+                Object singleton = context.getBeanFactory().getSingleton(name);
+                Assertions.assertThat(singleton).isNotInstanceOf(WebClient.class);
+                if (singleton != null) {
+                    Assertions.assertThat(singleton.getClass().getName()).doesNotStartWith("reactor.netty.");
+                }
+            }
         });
     }
 
@@ -56,7 +200,24 @@ class GitHubRepositoryAutoConfigurationTest {
         });
     }
 
+    private static GitHubUserRepository repository(String name) {
+        GitHubUserRepository repository = new GitHubUserRepository();
+        repository.setUser("myuser");
+        repository.setName(name);
+        return repository;
+    }
+
     @EnableConfigurationProperties
     static class EnablePropertiesConfiguration {
     }
+
+    @Configuration
+    static class CustomServiceConfiguration {
+        final GitHubUserRepositoryService service = mock(GitHubUserRepositoryService.class);
+
+        @Bean
+        public GitHubUserRepositoryService customGitHubUserRepositoryService() {
+            return service;
+        }
+    }
 }
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.kirksc1.bootops.github.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GitHubRepositoryChangesTest {
+
+    @Test
+    public void testBetween_whenDesiredUnset_thenNoChanges() {
+        GitHubUserRepository current = new GitHubUserRepository();
+        current.setDescription("my repo");
+        current.setTopics(Collections.singletonList("ops"));
+
+        GitHubRepositoryChanges changes = GitHubRepositoryChanges.between(new GitHubUserRepository(), current);
+
+        assertFalse(changes.hasSettings());
+        assertFalse(changes.hasTopics());
+    }
+
+    @Test
+    public void testBetween_whenSettingsDiffer_thenOnlyDifferingSettingsIncluded() {
+        GitHubUserRepository desired = new GitHubUserRepository();
+        desired.setDescription("my repo");
+        desired.setPrivate(true);
+        desired.setDeleteBranchOnMerge(true);
+        GitHubUserRepository current = new GitHubUserRepository();
+        current.setDescription("my repo");
+        current.setPrivate(false);
+
+        GitHubRepositoryChanges changes = GitHubRepositoryChanges.between(desired, current);
+
+        assertTrue(changes.hasSettings());
+        assertEquals(2, changes.getSettings().size());
+        assertEquals(true, changes.getSettings().get("private"));
+        assertEquals(true, changes.getSettings().get("delete_branch_on_merge"));
+    }
+
+    @Test
+    public void testBetween_whenTopicsEquivalent_thenNoTopicChange() {
+        GitHubUserRepository desired = new GitHubUserRepository();
+        desired.setTopics(Arrays.asList("Ops", "java"));
+        GitHubUserRepository current = new GitHubUserRepository();
+        current.setTopics(Arrays.asList("java", "ops"));
+
+        assertFalse(GitHubRepositoryChanges.between(desired, current).hasTopics());
+    }
+
+    @Test
+    public void testBetween_whenTopicsDiffer_thenNormalizedTopicsIncluded() {
+        GitHubUserRepository desired = new GitHubUserRepository();
+        desired.setTopics(Arrays.asList("Ops", "java"));
+
+        GitHubRepositoryChanges changes = GitHubRepositoryChanges.between(desired, new GitHubUserRepository());
+
+        assertTrue(changes.hasTopics());
+        assertEquals(Arrays.asList("java", "ops"), changes.getTopics());
+    }
+
+    @Test
+    public void testIsUnarchiving_whenArchivedRepositoryUnarchived_thenTrue() {
+        GitHubUserRepository desired = new GitHubUserRepository();
+        desired.setArchived(false);
+        GitHubUserRepository current = new GitHubUserRepository();
+        current.setArchived(true);
+
+        assertTrue(GitHubRepositoryChanges.between(desired, current).isUnarchiving());
+        assertFalse(GitHubRepositoryChanges.between(current, desired).isUnarchiving());
+    }
+
+    @Test
+    public void testCreationOf_whenSettingsSet_thenOnlyCreationSettingsIncluded() {
+        GitHubUserRepository desired = new GitHubUserRepository();
+        desired.setUser("myuser");
+        desired.setName("myrepo");
+        desired.setPrivate(false);
+        desired.setAllowRebaseMerge(false);
+        desired.setDefaultBranch("main");
+        desired.setArchived(false);
+
+        Map<String, Object> body = GitHubRepositoryChanges.creationOf(desired);
+
+        assertEquals(3, body.size());
+        assertEquals("myrepo", body.get("name"));
+        assertEquals(false, body.get("private"));
+        assertEquals(false, body.get("allow_rebase_merge"));
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.kirksc1.bootops.github.repository;
+
+import com.github.kirksc1.bootops.core.BootOpsException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+class GitHubRepositoryPrunerTest {
+
+    private GitHubSimulator simulator;
+    private GitHubConvergeReport report;
+    private GitHubUserRepositoryService service;
+    private final GitHubServiceProperties.Prune properties = new GitHubServiceProperties.Prune();
+
+    @BeforeEach
+    void setUp() {
+        simulator = new GitHubSimulator("myuser").start();
+        report = new GitHubConvergeReport();
+        service = simulator.newService(report);
+        for (int i = 0; i < 250; i++) {
+            simulator.addRepository("myuser", "repo-" + i, Collections.emptyMap());
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        simulator.close();
+    }
+
+    @Test
+    public void testConstructor_whenServiceNull_thenThrowIllegalArgumentException() {
+        IllegalArgumentException thrown = Assertions.assertThrows(IllegalArgumentException.class, () -> {
+            new GitHubRepositoryPruner(null, properties);
+        });
+
+        Assertions.assertEquals("The GitHubUserRepositoryService provided was null", thrown.getMessage());
+    }
+
+    @Test
+    public void testConstructor_whenConcurrencyNotPositive_thenThrowIllegalArgumentException() {
+        properties.setConcurrency(0);
+
+        IllegalArgumentException thrown = Assertions.assertThrows(IllegalArgumentException.class, () -> {
+            new GitHubRepositoryPruner(service, properties);
+        });
+
+        Assertions.assertEquals("The prune concurrency must be greater than zero", thrown.getMessage());
+    }
+
+    @Test
+    public void testListUserRepositories_whenPartlyConsumed_thenOnlyFirstPageRequested() {
+        long requests = simulator.getRequestCount();
+
+        service.listUserRepositories(GitHubRequestScheduler.Priority.BACKGROUND).take(5).blockLast();
+
+        Assertions.assertEquals(requests + 1, simulator.getRequestCount());
+    }
+
+    @Test
+    public void testPlan_whenRepositoriesNotDesired_thenOrphansPlannedWithoutChanges() {
+        GitHubRepositoryPruner pruner = new GitHubRepositoryPruner(service, properties);
+
+        GitHubPrunePlan plan = pruner.plan(desired(240));
+
+        Assertions.assertEquals(GitHubRepositoryPruner.Mode.ARCHIVE, plan.getMode());
+        Assertions.assertEquals(250, plan.getListed());
+        Assertions.assertEquals(10, plan.getOrphans().size());
+        Assertions.assertFalse(plan.isExecuted());
+        Assertions.assertEquals(false, simulator.getRepository("myuser", "repo-245").get("archived"));
+    }
+
+    @Test
+    public void testPlan_whenOrphanAlreadyArchived_thenNotPlannedForArchive() {
+        simulator.addRepository("myuser", "archived", Collections.singletonMap("archived", true));
+        GitHubRepositoryPruner pruner = new GitHubRepositoryPruner(service, properties);
+
+        GitHubPrunePlan plan = pruner.plan(desired(250));
+
+        Assertions.assertEquals(251, plan.getListed());
+        Assertions.assertTrue(plan.getOrphans().isEmpty());
+    }
+
+    @Test
+    public void testPlan_whenNothingDesired_thenThrowBootOpsException() {
+        GitHubRepositoryPruner pruner = new GitHubRepositoryPruner(service, properties);
+        long requests = simulator.getRequestCount();
+
+        BootOpsException thrown = Assertions.assertThrows(BootOpsException.class, () -> {
+            pruner.plan(Collections.emptyList());
+        });
+
+        Assertions.assertEquals("Refusing to plan a prune of every GitHub repository as no repositories are desired", thrown.getMessage());
+        Assertions.assertEquals(requests, simulator.getRequestCount());
+    }
+
+    @Test
+    public void testPlan_whenNothingDesiredAndForced_thenEveryRepositoryPlanned() {
+        GitHubRepositoryPruner pruner = new GitHubRepositoryPruner(service, properties);
+
+        GitHubPrunePlan plan = pruner.plan(Collections.emptyList(), true);
+
+        Assertions.assertEquals(250, plan.getOrphans().size());
+    }
+
+    @Test
+    public void testPlan_whenOrphansExceedMaximum_thenThrowBootOpsException() {
+        properties.setMaxOrphans(100);
+        GitHubRepositoryPruner pruner = new GitHubRepositoryPruner(service, properties);
+
+        BootOpsException thrown = Assertions.assertThrows(BootOpsException.class, () -> {
+            pruner.plan(desired(149));
+        });
+
+        Assertions.assertEquals("Refusing to plan a prune to archive 101 of 250 GitHub repositories as it exceeds the maximum of 100 orphans",
+                thrown.getMessage());
+    }
+
+    @Test
+    public void testPlan_whenOrphansExceedMaximumAndForced_thenOrphansPlanned() {
+        properties.setMaxOrphans(100);
+        GitHubRepositoryPruner pruner = new GitHubRepositoryPruner(service, properties);
+
+        GitHubPrunePlan plan = pruner.plan(desired(149), true);
+
+        Assertions.assertEquals(101, plan.getOrphans().size());
+    }
+
+    @Test
+    public void testPlan_whenRepositoriesListed_thenListingRecordedInReport() {
+        GitHubRepositoryPruner pruner = new GitHubRepositoryPruner(service, properties);
+
+        pruner.plan(desired(240));
+
+        GitHubConvergeSummary summary = report.summary();
+        Assertions.assertEquals(1L, (long) summary.getActions().get(GitHubRepositoryConvergeRecord.Action.LISTED));
+        Assertions.assertEquals(3L, summary.getApiCalls());
+        Assertions.assertEquals(0L, summary.getRepositories());
+    }
+
+    @Test
+    public void testExecute_whenArchiveMode_thenOrphansArchived() {
+        GitHubRepositoryPruner pruner = new GitHubRepositoryPruner(service, properties);
+        GitHubPrunePlan plan = pruner.plan(desired(240));
+
+        int pruned = pruner.execute(plan);
+
+        Assertions.assertEquals(10, pruned);
+        Assertions.assertTrue(plan.isExecuted());
+        Assertions.assertEquals(true, simulator.getRepository("myuser", "repo-245").get("archived"));
+        Assertions.assertEquals(false, simulator.getRepository("myuser", "repo-5").get("archived"));
+        Assertions.assertEquals(10L, (long) report.summary().getActions().get(GitHubRepositoryConvergeRecord.Action.ARCHIVED));
+    }
+
+    @Test
+    public void testExecute_whenDeleteMode_thenOrphansDeleted() {
+        properties.setMode(GitHubRepositoryPruner.Mode.DELETE);
+        GitHubRepositoryPruner pruner = new GitHubRepositoryPruner(service, properties);
+
+        pruner.execute(pruner.plan(desired(240)));
+
+        Assertions.assertEquals(240, simulator.getRepositoryCount());
+        Assertions.assertNull(simulator.getRepository("myuser", "repo-245"));
+        Assertions.assertEquals(10L, (long) report.summary().getActions().get(GitHubRepositoryConvergeRecord.Action.DELETED));
+    }
+
+    @Test
+    public void testExecute_whenPlanAlreadyExecuted_thenThrowIllegalStateException() {
+        GitHubRepositoryPruner pruner = new GitHubRepositoryPruner(service, properties);
+        GitHubPrunePlan plan = pruner.plan(desired(240));
+        pruner.execute(plan);
+
+        IllegalStateException thrown = Assertions.assertThrows(IllegalStateException.class, () -> {
+            pruner.execute(plan);
+        });
+
+        Assertions.assertEquals("The GitHubPrunePlan provided was already executed", thrown.getMessage());
+    }
+
+    @Test
+    public void testExecute_whenPlanMadeByAnotherPruner_thenThrowIllegalArgumentException() {
+        GitHubPrunePlan plan = new GitHubRepositoryPruner(service, properties).plan(desired(240));
+        GitHubRepositoryPruner pruner = new GitHubRepositoryPruner(service, properties);
+
+        IllegalArgumentException thrown = Assertions.assertThrows(IllegalArgumentException.class, () -> {
+            pruner.execute(plan);
+        });
+
+        Assertions.assertEquals("The GitHubPrunePlan provided was made by another pruner", thrown.getMessage());
+    }
+
+    @Test
+    public void testExecute_whenOrphansFail_thenAttemptAllAndThrowBootOpsException() {
+        GitHubRepositoryPruner pruner = new GitHubRepositoryPruner(service, properties);
+        GitHubPrunePlan plan = pruner.plan(desired(240));
+        simulator.setToken("another-token");
+
+        BootOpsException thrown = Assertions.assertThrows(BootOpsException.class, () -> {
+            pruner.execute(plan);
+        });
+
+        Assertions.assertEquals("Unable to prune 10 of 10 GitHub repositories", thrown.getMessage());
+        Assertions.assertEquals(9, thrown.getSuppressed().length);
+        Assertions.assertEquals(10L, (long) report.summary().getActions().get(GitHubRepositoryConvergeRecord.Action.FAILED));
+    }
+
+    private static List<GitHubUserRepository> desired(int count) {
+        List<GitHubUserRepository> desired = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            GitHubUserRepository repository = new GitHubUserRepository();
+            repository.setUser("myuser");
+            repository.setName("repo-" + i);
+            desired.add(repository);
+        }
+        return desired;
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.kirksc1.bootops.github.repository;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class GitHubRepositoryUrisTest {
+
+    @Test
+    public void testConstructor_whenBaseUrlNull_thenThrowIllegalArgumentException() {
+        IllegalArgumentException thrown = Assertions.assertThrows(IllegalArgumentException.class, () -> {
+            new GitHubRepositoryUris(null, 10);
+        });
+
+        Assertions.assertEquals("The base URL provided was null", thrown.getMessage());
+    }
+
+    @Test
+    public void testForWebClient_whenWebClientNull_thenThrowIllegalArgumentException() {
+        IllegalArgumentException thrown = Assertions.assertThrows(IllegalArgumentException.class, () -> {
+            GitHubRepositoryUris.forWebClient(null, 10);
+        });
+
+        Assertions.assertEquals("The WebClient provided was null", thrown.getMessage());
+    }
+
+    @Test
+    public void testForWebClient_whenUriBuilt_thenBaseUrlOfWebClientUsed() {
+        GitHubRepositoryUris uris = GitHubRepositoryUris.forWebClient(WebClient.create("https://github.example.com/api/v3/"), 10);
+
+        Assertions.assertEquals(URI.create("https://github.example.com/api/v3/repos/myuser/myrepo"), uris.of("myuser", "myrepo").repository());
+        Assertions.assertEquals(URI.create("https://github.example.com/api/v3/user/repos"), uris.userRepositories());
+    }
+
+    @Test
+    public void testForWebClient_whenNoUriBuilt_thenWebClientNotUsed() {
+        WebClient webClient = mock(WebClient.class);
+
+        GitHubRepositoryUris uris = GitHubRepositoryUris.forWebClient(webClient, 10);
+
+        Assertions.assertEquals(0, uris.getSize());
+        verifyNoInteractions(webClient);
+    }
+
+    @Test
+    public void testOf_whenNameNull_thenThrowIllegalArgumentException() {
+        GitHubRepositoryUris uris = new GitHubRepositoryUris("https://api.github.com", 10);
+
+        IllegalArgumentException thrown = Assertions.assertThrows(IllegalArgumentException.class, () -> {
+            uris.of("myuser", null);
+        });
+
+        Assertions.assertEquals("The name provided was null", thrown.getMessage());
+    }
+
+    @Test
+    public void testOf_whenBaseUrlHasTrailingSlash_thenSingleSlashInPath() {
+        GitHubRepositoryUris uris = new GitHubRepositoryUris("http://localhost:8089/", 10);
+
+        Assertions.assertEquals(URI.create("http://localhost:8089/repos/myuser/myrepo"), uris.of("myuser", "myrepo").repository());
+        Assertions.assertEquals(URI.create("http://localhost:8089/repos/myuser/myrepo/topics"), uris.of("myuser", "myrepo").topics());
+        Assertions.assertEquals(URI.create("http://localhost:8089/user/repos"), uris.userRepositories());
+    }
+
+    @Test
+    public void testOf_whenNameHasReservedCharacters_thenPercentEncoded() {
+        GitHubRepositoryUris uris = new GitHubRepositoryUris("https://api.github.com", 10);
+
+        GitHubRepositoryUris.RepositoryUris repositoryUris = uris.of("my user", "a/b?c#d%e");
+
+        Assertions.assertEquals("/repos/my%20user/a%2Fb%3Fc%23d%25e", repositoryUris.repository().getRawPath());
+        Assertions.assertEquals("my user/a/b?c#d%e", repositoryUris.fullName());
+        Assertions.assertEquals("/repos/my%20user/a%2Fb%3Fc%23d%25e/branches/feature%2Fx/protection",
+                repositoryUris.protection("feature/x").getRawPath());
+    }
+
+    @Test
+    public void testOf_whenRepositoryCached_thenSameInstanceReturnedAndHitCounted() {
+        GitHubRepositoryUris uris = new GitHubRepositoryUris("https://api.github.com", 10);
+
+        GitHubRepositoryUris.RepositoryUris first = uris.of("myuser", "myrepo");
+        GitHubRepositoryUris.RepositoryUris second = uris.of("myuser", "myrepo");
+
+        Assertions.assertSame(first, second);
+        Assertions.assertSame(first.protection("main"), second.protection("main"));
+        Assertions.assertEquals(1, uris.getSize());
+        Assertions.assertEquals(1, uris.getHits());
+        Assertions.assertEquals(1, uris.getMisses());
+    }
+
+    @Test
+    public void testOf_whenCacheFull_thenSizeBounded() {
+        GitHubRepositoryUris uris = new GitHubRepositoryUris("https://api.github.com", 3);
+
+        for (int i = 0; i < 10; i++) {
+            uris.of("myuser", "repo-" + i);
+        }
+
+        Assertions.assertEquals(3, uris.getSize());
+        Assertions.assertEquals(10, uris.getMisses());
+    }
+
+    @Test
+    public void testOf_whenEvictedAcrossOwners_thenEmptyOwnersDropped() {
+        GitHubRepositoryUris uris = new GitHubRepositoryUris("https://api.github.com", 1);
+
+        for (int i = 0; i < 10; i++) {
+            uris.of("owner-" + i, "myrepo");
+        }
+
+        Assertions.assertEquals(1, uris.getSize());
+        Assertions.assertEquals(1, uris.getOwnerCount());
+    }
+
+    @Test
+    public void testClear_whenRacingLookups_thenSizeConsistent() throws Exception {
+        GitHubRepositoryUris uris = new GitHubRepositoryUris("https://api.github.com", 50);
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int offset = t;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; running.get(); i++) {
+                    uris.of("owner-" + (i + offset) % 7, "repo-" + i % 100);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+
+        for (int i = 0; i < 2_000; i++) {
+            uris.clear();
+        }
+        running.set(false);
+        for (Thread thread : threads) {
+            thread.join(5000);
+        }
+
+        Assertions.assertTrue(uris.getSize() <= 50 + threads.size());
+        uris.clear();
+        Assertions.assertEquals(0, uris.getSize());
+        Assertions.assertEquals(0, uris.getOwnerCount());
+    }
+
+    @Test
+    public void testClear_whenCached_thenEmpty() {
+        GitHubRepositoryUris uris = new GitHubRepositoryUris("https://api.github.com", 10);
+        uris.of("myuser", "myrepo");
+        uris.of("myorg", "myrepo");
+
+        uris.clear();
+
+        Assertions.assertEquals(0, uris.getSize());
+        uris.of("myuser", "myrepo");
+        Assertions.assertEquals(3, uris.getMisses());
+    }
+}
@@ -0,0 +1,308 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.kirksc1.bootops.github.repository;
+
+import com.github.kirksc1.bootops.core.BootOpsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.github.kirksc1.bootops.github.repository.Await.awaitTrue;
+import static com.github.kirksc1.bootops.github.repository.GitHubRequestScheduler.Priority.BACKGROUND;
+import static com.github.kirksc1.bootops.github.repository.GitHubRequestScheduler.Priority.INTERACTIVE;
+import static com.github.kirksc1.bootops.github.repository.GitHubRequestScheduler.Priority.NORMAL;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GitHubRequestSchedulerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<GitHubRequestScheduler.Priority> started = new CopyOnWriteArrayList<>();
+
+    @Test
+    public void testConstructor_whenPropertiesNull_thenThrowIllegalArgumentException() {
+        IllegalArgumentException thrown = Assertions.assertThrows(IllegalArgumentException.class, () -> {
+            new GitHubRequestScheduler(null, meterRegistry);
+        });
+
+        Assertions.assertEquals("The Scheduler properties provided were null", thrown.getMessage());
+    }
+
+    @Test
+    public void testConstructor_whenMeterRegistryNull_thenThrowIllegalArgumentException() {
+        IllegalArgumentException thrown = Assertions.assertThrows(IllegalArgumentException.class, () -> {
+            new GitHubRequestScheduler(new GitHubServiceProperties.Scheduler(), null);
+        });
+
+        Assertions.assertEquals("The MeterRegistry provided was null", thrown.getMessage());
+    }
+
+    @Test
+    public void testConstructor_whenLanesReserveTooMuchConcurrency_thenThrowIllegalArgumentException() {
+        GitHubServiceProperties.Scheduler properties = new GitHubServiceProperties.Scheduler();
+        properties.getInteractive().setConcurrencyShare(0.75);
+        properties.getNormal().setConcurrencyShare(0.75);
+
+        IllegalArgumentException thrown = Assertions.assertThrows(IllegalArgumentException.class, () -> {
+            new GitHubRequestScheduler(properties, meterRegistry);
+        });
+
+        Assertions.assertEquals("The lanes reserve more than max-concurrency requests", thrown.getMessage());
+    }
+
+    @Test
+    public void testConstructor_whenLanesReserveTooMuchBudget_thenThrowIllegalArgumentException() {
+        GitHubServiceProperties.Scheduler properties = new GitHubServiceProperties.Scheduler();
+        properties.getBackground().setBudgetShare(0.75);
+
+        IllegalArgumentException thrown = Assertions.assertThrows(IllegalArgumentException.class, () -> {
+            new GitHubRequestScheduler(properties, meterRegistry);
+        });
+
+        Assertions.assertEquals("The lanes reserve more than the whole rate limit budget", thrown.getMessage());
+    }
+
+    @Test
+    public void testAcquire_whenBackgroundSaturated_thenInteractiveUsesReservedConcurrency() throws Exception {
+        GitHubRequestScheduler scheduler = new GitHubRequestScheduler(properties(3, 1.0 / 3, 0, 1.0 / 3), meterRegistry);
+        scheduler.acquire(BACKGROUND);
+        scheduler.acquire(BACKGROUND);
+
+        Thread blocked = acquireInThread(scheduler, BACKGROUND);
+        awaitTrue(() -> scheduler.getQueueDepth(BACKGROUND) == 1);
+
+        GitHubRequestScheduler.Permit interactive = scheduler.acquire(INTERACTIVE);
+
+        assertEquals(1, scheduler.getActive(INTERACTIVE));
+        assertEquals(2, scheduler.getActive(BACKGROUND));
+        assertEquals(1, scheduler.getQueueDepth(BACKGROUND));
+        interactive.close();
+        blocked.interrupt();
+        blocked.join(5000);
+    }
+
+    @Test
+    public void testAcquire_whenSharedSlotReleased_thenHighestPriorityServedFirst() throws Exception {
+        GitHubRequestScheduler scheduler = new GitHubRequestScheduler(properties(1, 0, 0, 0), meterRegistry);
+        GitHubRequestScheduler.Permit held = scheduler.acquire(NORMAL);
+
+        Thread background = acquireAndReleaseInThread(scheduler, BACKGROUND);
+        awaitTrue(() -> scheduler.getQueueDepth(BACKGROUND) == 1);
+        Thread interactive = acquireAndReleaseInThread(scheduler, INTERACTIVE);
+        awaitTrue(() -> scheduler.getQueueDepth(INTERACTIVE) == 1);
+
+        held.close();
+        background.join(5000);
+        interactive.join(5000);
+
+        assertEquals(List.of(INTERACTIVE, BACKGROUND), started);
+    }
+
+    @Test
+    public void testAcquire_whenLowerPriorityStarved_thenServedAheadOfHigherPriority() throws Exception {
+        GitHubServiceProperties.Scheduler properties = properties(1, 0, 0, 0);
+        properties.setStarvationThreshold(Duration.ofMillis(50));
+        GitHubRequestScheduler scheduler = new GitHubRequestScheduler(properties, meterRegistry);
+        GitHubRequestScheduler.Permit held = scheduler.acquire(NORMAL);
+
+        Thread background = acquireAndReleaseInThread(scheduler, BACKGROUND);
+        awaitTrue(() -> scheduler.getQueueDepth(BACKGROUND) == 1);
+        Thread.sleep(100);
+        Thread interactive = acquireAndReleaseInThread(scheduler, INTERACTIVE);
+        awaitTrue(() -> scheduler.getQueueDepth(INTERACTIVE) == 1);
+
+        held.close();
+        background.join(5000);
+        interactive.join(5000);
+
+        assertEquals(List.of(BACKGROUND, INTERACTIVE), started);
+    }
+
+    @Test
+    public void testAcquire_whenBudgetBelowReservedShare_thenOnlyHigherLanesProceed() throws Exception {
+        GitHubRequestScheduler scheduler = new GitHubRequestScheduler(new GitHubServiceProperties.Scheduler(), meterRegistry);
+        scheduler.onResponse(rateLimitHeaders(100, 40, 3600));
+
+        Thread background = acquireInThread(scheduler, BACKGROUND);
+        awaitTrue(() -> scheduler.getQueueDepth(BACKGROUND) == 1);
+
+        scheduler.acquire(NORMAL).close();
+        scheduler.acquire(INTERACTIVE).close();
+
+        assertEquals(1, scheduler.getQueueDepth(BACKGROUND));
+        background.interrupt();
+        background.join(5000);
+        assertEquals(0, scheduler.getQueueDepth(BACKGROUND));
+    }
+
+    @Test
+    public void testAcquire_whenStarvedBelowReservedShare_thenServedFromReservedBudget() throws Exception {
+        GitHubServiceProperties.Scheduler properties = new GitHubServiceProperties.Scheduler();
+        properties.setStarvationThreshold(Duration.ofMillis(50));
+        GitHubRequestScheduler scheduler = new GitHubRequestScheduler(properties, meterRegistry);
+        scheduler.onResponse(rateLimitHeaders(100, 2, 3600));
+
+        long start = System.nanoTime();
+        Thread background = acquireInThread(scheduler, BACKGROUND);
+        background.join(5000);
+
+        assertEquals(List.of(BACKGROUND), started);
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertEquals(1, scheduler.getRateLimitRemaining());
+    }
+
+    @Test
+    public void testAcquire_whenRateLimitedWithRetryAfter_thenWaitBeforeSending() {
+        GitHubRequestScheduler scheduler = new GitHubRequestScheduler(new GitHubServiceProperties.Scheduler(), meterRegistry);
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "1");
+
+        scheduler.onRateLimited(headers);
+        GitHubRequestScheduler.Permit permit = scheduler.acquire(INTERACTIVE);
+
+        assertTrue(permit.getWaitNanos() >= TimeUnit.MILLISECONDS.toNanos(900));
+        permit.close();
+    }
+
+    @Test
+    public void testAcquire_whenInterrupted_thenThrowBootOpsException() throws Exception {
+        GitHubRequestScheduler scheduler = new GitHubRequestScheduler(properties(1, 0, 0, 0), meterRegistry);
+        scheduler.acquire(NORMAL);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        Thread waiting = new Thread(() -> {
+            try {
+                scheduler.acquire(NORMAL);
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+        waiting.start();
+        awaitTrue(() -> scheduler.getQueueDepth(NORMAL) == 1);
+        waiting.interrupt();
+        waiting.join(5000);
+
+        assertTrue(failure.get() instanceof BootOpsException);
+        assertEquals("Interrupted while waiting to send a request to GitHub", failure.get().getMessage());
+    }
+
+    @Test
+    public void testAcquire_whenPaused_thenWaitUntilResumed() throws Exception {
+        GitHubRequestScheduler scheduler = new GitHubRequestScheduler(new GitHubServiceProperties.Scheduler(), meterRegistry);
+        scheduler.pause();
+
+        Thread interactive = acquireInThread(scheduler, INTERACTIVE);
+        awaitTrue(() -> scheduler.getQueueDepth(INTERACTIVE) == 1);
+        Thread.sleep(50);
+        assertTrue(scheduler.isPaused());
+        assertTrue(started.isEmpty());
+
+        scheduler.resume();
+        interactive.join(5000);
+
+        assertFalse(scheduler.isPaused());
+        assertEquals(List.of(INTERACTIVE), started);
+    }
+
+    @Test
+    public void testOnResponse_whenRateLimitHeadersProvided_thenBudgetExposed() {
+        GitHubRequestScheduler scheduler = new GitHubRequestScheduler(new GitHubServiceProperties.Scheduler(), meterRegistry);
+        assertEquals(-1, scheduler.getRateLimit());
+        assertEquals(-1, scheduler.getRateLimitRemaining());
+
+        scheduler.onResponse(rateLimitHeaders(5000, 4000, 3600));
+        scheduler.acquire(NORMAL).close();
+
+        assertEquals(5000, scheduler.getRateLimit());
+        assertEquals(3999, scheduler.getRateLimitRemaining());
+        assertTrue(scheduler.getRateLimitResetMillis() > System.currentTimeMillis());
+        assertTrue(scheduler.getPausedUntilMillis() <= System.currentTimeMillis());
+    }
+
+    @Test
+    public void testAcquire_whenRateLimitWindowReset_thenBudgetRefilledOnce() {
+        GitHubRequestScheduler scheduler = new GitHubRequestScheduler(new GitHubServiceProperties.Scheduler(), meterRegistry);
+        scheduler.onResponse(rateLimitHeaders(100, 0, -1));
+
+        scheduler.acquire(NORMAL).close();
+        scheduler.acquire(NORMAL).close();
+
+        assertEquals(98, scheduler.getRateLimitRemaining());
+        assertTrue(scheduler.getRateLimitResetMillis() > System.currentTimeMillis());
+    }
+
+    @Test
+    public void testAcquire_whenPermitsUsed_thenLaneMetricsPublished() {
+        GitHubRequestScheduler scheduler = new GitHubRequestScheduler(new GitHubServiceProperties.Scheduler(), meterRegistry);
+
+        GitHubRequestScheduler.Permit permit = scheduler.acquire(INTERACTIVE);
+
+        assertEquals(1.0, meterRegistry.get("bootops.github.scheduler.active").tag("lane", "interactive").gauge().value());
+        assertEquals(0.0, meterRegistry.get("bootops.github.scheduler.queue").tag("lane", "interactive").gauge().value());
+        assertEquals(1, meterRegistry.get("bootops.github.scheduler.wait").tag("lane", "interactive").timer().count());
+        permit.close();
+        permit.close();
+        assertEquals(0.0, meterRegistry.get("bootops.github.scheduler.active").tag("lane", "interactive").gauge().value());
+    }
+
+    private static GitHubServiceProperties.Scheduler properties(int maxConcurrency, double interactive, double normal, double background) {
+        GitHubServiceProperties.Scheduler properties = new GitHubServiceProperties.Scheduler();
+        properties.setMaxConcurrency(maxConcurrency);
+        properties.getInteractive().setConcurrencyShare(interactive);
+        properties.getNormal().setConcurrencyShare(normal);
+        properties.getBackground().setConcurrencyShare(background);
+        return properties;
+    }
+
+    private static HttpHeaders rateLimitHeaders(long limit, long remaining, long resetInSeconds) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("X-RateLimit-Limit", String.valueOf(limit));
+        headers.set("X-RateLimit-Remaining", String.valueOf(remaining));
+        headers.set("X-RateLimit-Reset", String.valueOf(System.currentTimeMillis() / 1000 + resetInSeconds));
+        return headers;
+    }
+
+    private Thread acquireInThread(GitHubRequestScheduler scheduler, GitHubRequestScheduler.Priority priority) {
+        Thread thread = new Thread(() -> {
+            try {
+                scheduler.acquire(priority);
+                started.add(priority);
+            } catch (BootOpsException e) {
+                // interrupted while waiting
+            }
+        });
+        thread.start();
+        return thread;
+    }
+
+    private Thread acquireAndReleaseInThread(GitHubRequestScheduler scheduler, GitHubRequestScheduler.Priority priority) {
+        Thread thread = new Thread(() -> {
+            try (GitHubRequestScheduler.Permit permit = scheduler.acquire(priority)) {
+                started.add(priority);
+            }
+        });
+        thread.start();
+        return thread;
+    }
+}
@@ -17,6 +17,8 @@ package com.github.kirksc1.bootops.github.repository;
 
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class GitHubServicePropertiesTest {
@@ -25,9 +27,20 @@ class GitHubServicePropertiesTest {
     public void testConstructor_whenCreated_thenDefaultsMatch() {
         GitHubServiceProperties properties = new GitHubServiceProperties();
 
+        assertTrue(properties.isEnabled());
         assertEquals("https://api.github.com", properties.getBaseUrl());
         assertEquals("application/vnd.github+json", properties.getAccept());
         assertEquals("GITHUB_TOKEN", properties.getTokenEnvironmentVariableName());
+        assertNull(properties.getReport().getPath());
+        assertEquals(10_000, properties.getUriCacheSize());
+        assertEquals(8, properties.getScheduler().getMaxConcurrency());
+        assertEquals(Duration.ofSeconds(30), properties.getScheduler().getStarvationThreshold());
+        assertEquals(3, properties.getScheduler().getMaxRetries());
+        assertEquals(0.2, properties.getScheduler().getInteractive().getBudgetShare());
+        assertEquals(0.0, properties.getScheduler().getBackground().getBudgetShare());
+        assertFalse(properties.getPrune().isEnabled());
+        assertEquals(GitHubRepositoryPruner.Mode.ARCHIVE, properties.getPrune().getMode());
+        assertEquals(4, properties.getPrune().getConcurrency());
     }
 
 }
\ No newline at end of file
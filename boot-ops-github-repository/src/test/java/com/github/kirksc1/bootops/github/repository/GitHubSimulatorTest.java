@@ -0,0 +1,201 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.kirksc1.bootops.github.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+class GitHubSimulatorTest {
+
+    private GitHubSimulator simulator;
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @BeforeEach
+    void setUp() {
+        simulator = new GitHubSimulator("myuser").start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        simulator.close();
+    }
+
+    @Test
+    public void testConstructor_whenLoginNull_thenThrowIllegalArgumentException() {
+        IllegalArgumentException thrown = Assertions.assertThrows(IllegalArgumentException.class, () -> {
+            new GitHubSimulator(null);
+        });
+
+        Assertions.assertEquals("The login provided was null", thrown.getMessage());
+    }
+
+    @Test
+    public void testGetRepository_whenRepositoryMissing_thenNotFound() throws Exception {
+        HttpResponse<String> response = send("GET", "/repos/myuser/myrepo", null);
+
+        Assertions.assertEquals(404, response.statusCode());
+    }
+
+    @Test
+    public void testCreateRepository_whenPostedToUserRepos_thenRepositoryOwnedByUser() throws Exception {
+        HttpResponse<String> response = send("POST", "/user/repos", "{\"name\":\"myrepo\",\"description\":\"my repo\",\"private\":true}");
+
+        Assertions.assertEquals(201, response.statusCode());
+        Map<String, Object> repository = simulator.getRepository("myuser", "myrepo");
+        Assertions.assertEquals("myuser/myrepo", repository.get("full_name"));
+        Assertions.assertEquals("my repo", repository.get("description"));
+        Assertions.assertEquals(true, repository.get("private"));
+        Assertions.assertEquals("private", repository.get("visibility"));
+    }
+
+    @Test
+    public void testCreateRepository_whenRepositoryExists_thenUnprocessable() throws Exception {
+        simulator.addRepository("myorg", "myrepo", Collections.emptyMap());
+
+        HttpResponse<String> response = send("POST", "/orgs/myorg/repos", "{\"name\":\"MyRepo\"}");
+
+        Assertions.assertEquals(422, response.statusCode());
+        Assertions.assertEquals(1, simulator.getRepositoryCount());
+    }
+
+    @Test
+    public void testListRepositories_whenMoreThanOnePage_thenLinkToNextAndLastPage() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            simulator.addRepository("myuser", "repo" + i, Collections.emptyMap());
+        }
+        simulator.addRepository("otheruser", "repo", Collections.emptyMap());
+
+        HttpResponse<String> response = send("GET", "/user/repos?per_page=2&page=2", null);
+
+        Assertions.assertEquals(200, response.statusCode());
+        Assertions.assertTrue(response.body().contains("\"myuser/repo2\""));
+        Assertions.assertTrue(response.body().contains("\"myuser/repo3\""));
+        Assertions.assertFalse(response.body().contains("otheruser"));
+        String link = response.headers().firstValue("Link").orElseThrow();
+        Assertions.assertTrue(link.contains("/user/repos?per_page=2&page=3>; rel=\"next\""));
+        Assertions.assertTrue(link.contains("/user/repos?per_page=2&page=3>; rel=\"last\""));
+        Assertions.assertTrue(link.contains("/user/repos?per_page=2&page=1>; rel=\"prev\""));
+    }
+
+    @Test
+    public void testGetRepository_whenETagMatches_thenNotModifiedWithoutUsingRateLimit() throws Exception {
+        simulator.addRepository("myuser", "myrepo", Collections.emptyMap());
+        HttpResponse<String> first = send("GET", "/repos/myuser/myrepo", null);
+        String etag = first.headers().firstValue("ETag").orElseThrow();
+
+        HttpResponse<String> second = send("GET", "/repos/myuser/myrepo", null, "If-None-Match", etag);
+
+        Assertions.assertEquals(304, second.statusCode());
+        Assertions.assertEquals(first.headers().firstValue("X-RateLimit-Remaining"), second.headers().firstValue("X-RateLimit-Remaining"));
+    }
+
+    @Test
+    public void testRequests_whenRateLimitExhausted_thenForbiddenUntilReset() throws Exception {
+        simulator.setRateLimit(2);
+
+        Assertions.assertEquals("1", send("GET", "/repos/myuser/a", null).headers().firstValue("X-RateLimit-Remaining").orElseThrow());
+        Assertions.assertEquals("0", send("GET", "/repos/myuser/b", null).headers().firstValue("X-RateLimit-Remaining").orElseThrow());
+        HttpResponse<String> response = send("GET", "/repos/myuser/c", null);
+
+        Assertions.assertEquals(403, response.statusCode());
+        Assertions.assertEquals("0", response.headers().firstValue("X-RateLimit-Remaining").orElseThrow());
+        Assertions.assertTrue(response.headers().firstValue("X-RateLimit-Reset").isPresent());
+    }
+
+    @Test
+    public void testRequests_whenErrorInjected_thenRespondWithErrorAndRetryAfter() throws Exception {
+        simulator.setErrorRate(1.0);
+        simulator.setErrorStatus(429);
+
+        HttpResponse<String> response = send("GET", "/repos/myuser/myrepo", null);
+
+        Assertions.assertEquals(429, response.statusCode());
+        Assertions.assertEquals("1", response.headers().firstValue(HttpHeaders.RETRY_AFTER).orElseThrow());
+    }
+
+    @Test
+    public void testRequests_whenTokenDoesNotMatch_thenUnauthorized() throws Exception {
+        simulator.setToken("secret");
+
+        HttpResponse<String> response = send("GET", "/repos/myuser/myrepo", null);
+
+        Assertions.assertEquals(401, response.statusCode());
+    }
+
+    @Test
+    public void testUpdateRepository_whenArchived_thenReadOnly() throws Exception {
+        simulator.addRepository("myuser", "myrepo", Collections.singletonMap("archived", true));
+
+        HttpResponse<String> update = send("PATCH", "/repos/myuser/myrepo", "{\"description\":\"my repo\"}");
+        HttpResponse<String> topics = send("PUT", "/repos/myuser/myrepo/topics", "{\"names\":[\"ops\"]}");
+        HttpResponse<String> unarchive = send("PATCH", "/repos/myuser/myrepo", "{\"archived\":false}");
+
+        Assertions.assertEquals(403, update.statusCode());
+        Assertions.assertEquals(403, topics.statusCode());
+        Assertions.assertEquals(200, unarchive.statusCode());
+    }
+
+    @Test
+    public void testProtectBranch_whenProtected_thenRespondInGitHubForm() throws Exception {
+        simulator.addRepository("myuser", "myrepo", Collections.emptyMap());
+
+        send("PUT", "/repos/myuser/myrepo/branches/main/protection", "{\"required_status_checks\":null,\"enforce_admins\":true,"
+                + "\"required_pull_request_reviews\":null,\"restrictions\":null,\"allow_force_pushes\":false,\"allow_deletions\":false}");
+        HttpResponse<String> response = send("GET", "/repos/myuser/myrepo/branches/main/protection", null);
+
+        Assertions.assertEquals(200, response.statusCode());
+        Assertions.assertTrue(response.body().contains("\"enforce_admins\":{\"enabled\":true}"));
+    }
+
+    @Test
+    public void testApplyState_whenConvergedTwice_thenSecondConvergeUnchanged() {
+        GitHubUserRepositoryService service = simulator.newService(new GitHubConvergeReport());
+        GitHubUserRepository repository = new GitHubUserRepository();
+        repository.setUser("myuser");
+        repository.setName("myrepo");
+        repository.setDescription("my repo");
+        repository.setTopics(Arrays.asList("ops", "java"));
+        repository.setDefaultBranch("main");
+
+        service.applyState(repository);
+        long requests = simulator.getRequestCount();
+        service.applyState(repository);
+
+        Assertions.assertEquals(Arrays.asList("java", "ops"), simulator.getRepository("myuser", "myrepo").get("topics"));
+        Assertions.assertEquals(requests + 1, simulator.getRequestCount());
+    }
+
+    private HttpResponse<String> send(String method, String path, String body, String... headers) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(simulator.getBaseUrl() + path))
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body));
+        if (headers.length > 0) {
+            request.headers(headers);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
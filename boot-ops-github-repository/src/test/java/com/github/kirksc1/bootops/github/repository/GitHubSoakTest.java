@@ -0,0 +1,160 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.kirksc1.bootops.github.repository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Soak test converging 10k repositories against the GitHub simulator.  Run with ./gradlew soakTest; the
+ * throughput and heap bounds can be tuned with the soak.min-throughput and soak.max-heap-growth-mb system
+ * properties.  The simulator shares the heap, so the growth of its own repository storage is measured
+ * separately and excluded from the bound.
+ */
+@Tag("soak")
+class GitHubSoakTest {
+
+    private static final int REPOSITORIES = 10_000;
+    private static final int EXISTING = 3_000;
+    private static final int THREADS = 32;
+    private static final int URI_CACHE_SIZE = 1_000;
+
+    private GitHubSimulator simulator;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        simulator = new GitHubSimulator("soakuser", new Random(42)).start();
+        simulator.setRateLimit(1_000_000);
+        simulator.setLatency(Duration.ofMillis(1));
+        simulator.setLatencyJitter(Duration.ofMillis(4));
+        simulator.setErrorRate(0.002);
+        simulator.setErrorStatus(429);
+        simulator.setErrorRetryAfterSeconds(0);
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        simulator.close();
+    }
+
+    @Test
+    public void testApplyState_when10kRepositoriesConverged_thenThroughputAndHeapBounded() throws Exception {
+        double minThroughput = Double.parseDouble(System.getProperty("soak.min-throughput", "100"));
+        long maxHeapGrowthBytes = Long.getLong("soak.max-heap-growth-mb", 8) * 1024 * 1024;
+
+        for (int i = 0; i < EXISTING; i++) {
+            simulator.addRepository("soakuser", "repo-" + i,
+                    Collections.singletonMap("description", i % 2 == 0 ? "repository " + i : "stale"));
+        }
+
+        GitHubServiceProperties.Scheduler properties = new GitHubServiceProperties.Scheduler();
+        properties.setMaxConcurrency(THREADS);
+        GitHubConvergeReport report = new GitHubConvergeReport(Writer.nullWriter());
+        GitHubUserRepositoryService service = simulator.newService(report, new GitHubRequestScheduler(properties, new SimpleMeterRegistry()),
+                new GitHubRepositoryUris(simulator.getBaseUrl(), URI_CACHE_SIZE));
+
+        converge(service, 0, THREADS);
+        long heapBefore = usedHeapAfterGc();
+
+        long start = System.nanoTime();
+        converge(service, THREADS, REPOSITORIES);
+        double seconds = (System.nanoTime() - start) / (double) TimeUnit.SECONDS.toNanos(1);
+
+        long simulatorGrowth = simulatorStorageGrowth();
+        long heapGrowth = usedHeapAfterGc() - heapBefore - simulatorGrowth;
+        GitHubConvergeSummary summary = report.summary();
+        double throughput = (REPOSITORIES - THREADS) / seconds;
+
+        Assertions.assertEquals(REPOSITORIES, summary.getRepositories());
+        Assertions.assertEquals(0, (long) summary.getActions().get(GitHubRepositoryConvergeRecord.Action.FAILED));
+        Assertions.assertEquals(REPOSITORIES - EXISTING, (long) summary.getActions().get(GitHubRepositoryConvergeRecord.Action.CREATED));
+        Assertions.assertEquals(EXISTING / 2, (long) summary.getActions().get(GitHubRepositoryConvergeRecord.Action.UNCHANGED));
+        Assertions.assertEquals(REPOSITORIES, simulator.getRepositoryCount());
+        Assertions.assertEquals(Arrays.asList("ops", "soak"), simulator.getRepository("soakuser", "repo-9999").get("topics"));
+        Assertions.assertTrue(throughput >= minThroughput,
+                String.format("Converged %.1f repositories/s, expected at least %.1f", throughput, minThroughput));
+        Assertions.assertTrue(heapGrowth <= maxHeapGrowthBytes,
+                String.format("Heap grew by %d bytes excluding %d bytes of simulator storage, expected at most %d",
+                        heapGrowth, simulatorGrowth, maxHeapGrowthBytes));
+    }
+
+    /**
+     * Measure the heap retained by the repositories the converge created in the simulator, by creating the same
+     * repositories in a second simulator that is never started.
+     * @return The bytes retained by the created repositories.
+     */
+    private static long simulatorStorageGrowth() {
+        GitHubSimulator storage = new GitHubSimulator("soakuser");
+        long heapBefore = usedHeapAfterGc();
+        for (int i = EXISTING; i < REPOSITORIES; i++) {
+            Map<String, Object> settings = new HashMap<>();
+            settings.put("description", "repository " + i);
+            settings.put("topics", Arrays.asList("ops", "soak"));
+            storage.addRepository("soakuser", "repo-" + i, settings);
+        }
+        long growth = usedHeapAfterGc() - heapBefore;
+        Assertions.assertEquals(REPOSITORIES - EXISTING, storage.getRepositoryCount());
+        return growth;
+    }
+
+    private void converge(GitHubUserRepositoryService service, int from, int to) throws Exception {
+        List<Future<?>> futures = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            GitHubUserRepository repository = new GitHubUserRepository();
+            repository.setUser("soakuser");
+            repository.setName("repo-" + i);
+            repository.setDescription("repository " + i);
+            if (i >= EXISTING) {
+                repository.setTopics(Arrays.asList("soak", "ops"));
+            }
+            futures.add(executor.submit(() -> service.applyState(repository)));
+        }
+        for (Future<?> future : futures) {
+            future.get(5, TimeUnit.MINUTES);
+        }
+    }
+
+    private static long usedHeapAfterGc() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -18,6 +18,8 @@ package com.github.kirksc1.bootops.github.repository;
 import com.github.kirksc1.bootops.converge.ItemConvergeInitiatedEvent;
 import com.github.kirksc1.bootops.core.AttributeRetriever;
 import com.github.kirksc1.bootops.core.Item;
+import io.micrometer.observation.tck.TestObservationRegistry;
+import io.micrometer.observation.tck.TestObservationRegistryAssert;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -69,6 +71,15 @@ class GitHubUserRepositoryConvergeInitiatedEventListenerTest {
         Assertions.assertEquals("The AttributeRetriever provided was null", thrown.getMessage());
     }
 
+    @Test
+    public void testConstructor_whenObservationRegistryNull_thenThrowIllegalArgumentException() {
+        IllegalArgumentException thrown = Assertions.assertThrows(IllegalArgumentException.class, () -> {
+            new GitHubUserRepositoryConvergeInitiatedEventListener(mock(GitHubUserRepositoryService.class), mock(AttributeRetriever.class), null);
+        });
+
+        Assertions.assertEquals("The ObservationRegistry provided was null", thrown.getMessage());
+    }
+
     @Test
     public void testOnApplicationEvent_whenAttributeMissing_thenDoNotCallService() {
         listener.onApplicationEvent(event);
@@ -83,7 +94,54 @@ class GitHubUserRepositoryConvergeInitiatedEventListenerTest {
 
         listener.onApplicationEvent(event);
 
-        verify(service, times(1)).applyState(same(repository));
+        verify(service, times(1)).applyState(same(repository), eq(GitHubRequestScheduler.Priority.NORMAL));
+    }
+
+    @Test
+    public void testOnApplicationEvent_whenPrioritySet_thenConvergeInPriorityLane() {
+        GitHubUserRepository repository = new GitHubUserRepository();
+        repository.setPriority(GitHubRequestScheduler.Priority.INTERACTIVE);
+        when(retriever.retrieve(item)).thenReturn(Optional.of(repository));
+
+        listener.onApplicationEvent(event);
+
+        verify(service, times(1)).applyState(same(repository), eq(GitHubRequestScheduler.Priority.INTERACTIVE));
+    }
+
+    @Test
+    public void testOnApplicationEvent_whenAttributePresent_thenConvergeObserved() {
+        TestObservationRegistry registry = TestObservationRegistry.create();
+        listener = new GitHubUserRepositoryConvergeInitiatedEventListener(service, retriever, registry);
+        GitHubUserRepository repository = new GitHubUserRepository();
+        repository.setUser("myuser");
+        repository.setName("myrepo");
+        when(retriever.retrieve(item)).thenReturn(Optional.of(repository));
+
+        listener.onApplicationEvent(event);
+
+        TestObservationRegistryAssert.assertThat(registry)
+                .hasObservationWithNameEqualTo(GitHubUserRepositoryConvergeInitiatedEventListener.CONVERGE_OBSERVATION_NAME)
+                .that()
+                .hasHighCardinalityKeyValue("github.repository", "myuser/myrepo")
+                .hasBeenStarted()
+                .hasBeenStopped();
+    }
+
+    @Test
+    public void testOnApplicationEvent_whenServiceFails_thenObservationRecordsError() {
+        TestObservationRegistry registry = TestObservationRegistry.create();
+        listener = new GitHubUserRepositoryConvergeInitiatedEventListener(service, retriever, registry);
+        GitHubUserRepository repository = new GitHubUserRepository();
+        when(retriever.retrieve(item)).thenReturn(Optional.of(repository));
+        doThrow(new IllegalStateException("boom")).when(service).applyState(repository, GitHubRequestScheduler.Priority.NORMAL);
+
+        Assertions.assertThrows(IllegalStateException.class, () -> listener.onApplicationEvent(event));
+
+        TestObservationRegistryAssert.assertThat(registry)
+                .hasObservationWithNameEqualTo(GitHubUserRepositoryConvergeInitiatedEventListener.CONVERGE_OBSERVATION_NAME)
+                .that()
+                .hasError()
+                .hasBeenStopped();
     }
 
 }
\ No newline at end of file
@@ -15,10 +15,20 @@
  */
 package com.github.kirksc1.bootops.github.repository;
 
+import com.github.kirksc1.bootops.converge.ItemConvergeInitiatedEvent;
 import com.github.kirksc1.bootops.core.AttributeRetriever;
 import com.github.kirksc1.bootops.core.BootOpsException;
+import com.github.kirksc1.bootops.core.Item;
 import com.github.tomakehurst.wiremock.client.WireMock;
 import com.github.tomakehurst.wiremock.http.Body;
+import com.github.tomakehurst.wiremock.stubbing.Scenario;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.contextpropagation.ObservationThreadLocalAccessor;
+import io.micrometer.tracing.handler.DefaultTracingObservationHandler;
+import io.micrometer.tracing.test.simple.SimpleSpan;
+import io.micrometer.tracing.test.simple.SimpleTracer;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -28,9 +38,19 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.cloud.contract.wiremock.AutoConfigureWireMock;
 import org.springframework.context.ApplicationContextInitializer;
 import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
 import org.springframework.test.context.ContextConfiguration;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 @SpringBootTest(properties = { "github.service.base-url=http://localhost:8089/" })
 @ContextConfiguration(initializers = {GitHubUserRepositoryServiceTest.TestApplicationContextInitializer.class})
@@ -40,6 +60,15 @@ class GitHubUserRepositoryServiceTest {
     @Autowired
     GitHubUserRepositoryService service;
 
+    @Autowired
+    GitHubConvergeReport report;
+
+    @Autowired
+    ObservationRegistry observationRegistry;
+
+    @Autowired
+    SimpleTracer tracer;
+
     @AfterAll
     static void afterAll() {
         System.clearProperty("GITHUB_TOKEN");
@@ -47,6 +76,15 @@ class GitHubUserRepositoryServiceTest {
 
     @Test
     public void testConstructor_whenWebClientNull_thenThrowIllegalArgumentException() {
+        IllegalArgumentException thrown = Assertions.assertThrows(IllegalArgumentException.class, () -> {
+            new GitHubUserRepositoryService(null, new GitHubRepositoryUris("http://localhost:8089", 10));
+        });
+
+        Assertions.assertEquals("The WebClient provided was null", thrown.getMessage());
+    }
+
+    @Test
+    public void testConstructor_whenOnlyWebClientNull_thenThrowIllegalArgumentException() {
         IllegalArgumentException thrown = Assertions.assertThrows(IllegalArgumentException.class, () -> {
             new GitHubUserRepositoryService(null);
         });
@@ -54,6 +92,53 @@ class GitHubUserRepositoryServiceTest {
         Assertions.assertEquals("The WebClient provided was null", thrown.getMessage());
     }
 
+    @Test
+    public void testConstructor_whenOnlyWebClientProvided_thenRequestsSentToWebClientBaseUrl() {
+        WireMock.stubFor(get("/repos/myuser/myrepo")
+                .willReturn(ok()
+                        .withHeader("Content-Type", "application/vnd.github+json")
+                        .withResponseBody(Body.fromJsonBytes("{\"name\":\"myrepo\"}".getBytes()))));
+        GitHubUserRepositoryService webClientService = new GitHubUserRepositoryService(WebClient.create("http://localhost:8089/"));
+
+        GitHubUserRepository repository = new GitHubUserRepository();
+        repository.setUser("myuser");
+        repository.setName("myrepo");
+        webClientService.applyState(repository);
+
+        WireMock.verify(1, WireMock.getRequestedFor(urlEqualTo("/repos/myuser/myrepo")));
+    }
+
+    @Test
+    public void testConstructor_whenReportNull_thenThrowIllegalArgumentException() {
+        IllegalArgumentException thrown = Assertions.assertThrows(IllegalArgumentException.class, () -> {
+            new GitHubUserRepositoryService(WebClient.create(), null, ObservationRegistry.NOOP,
+                    new GitHubRequestScheduler(new GitHubServiceProperties.Scheduler(), new SimpleMeterRegistry()),
+                    new GitHubRepositoryUris("http://localhost:8089", 10));
+        });
+
+        Assertions.assertEquals("The GitHubConvergeReport provided was null", thrown.getMessage());
+    }
+
+    @Test
+    public void testConstructor_whenSchedulerNull_thenThrowIllegalArgumentException() {
+        IllegalArgumentException thrown = Assertions.assertThrows(IllegalArgumentException.class, () -> {
+            new GitHubUserRepositoryService(WebClient.create(), new GitHubConvergeReport(), ObservationRegistry.NOOP, null,
+                    new GitHubRepositoryUris("http://localhost:8089", 10));
+        });
+
+        Assertions.assertEquals("The GitHubRequestScheduler provided was null", thrown.getMessage());
+    }
+
+    @Test
+    public void testConstructor_whenUrisNull_thenThrowIllegalArgumentException() {
+        IllegalArgumentException thrown = Assertions.assertThrows(IllegalArgumentException.class, () -> {
+            new GitHubUserRepositoryService(WebClient.create(), new GitHubConvergeReport(), ObservationRegistry.NOOP,
+                    new GitHubRequestScheduler(new GitHubServiceProperties.Scheduler(), new SimpleMeterRegistry()), null);
+        });
+
+        Assertions.assertEquals("The GitHubRepositoryUris provided was null", thrown.getMessage());
+    }
+
     @Test
     public void testApplyState_whenRepositoryNotFound_thenCreateRepository() {
         String user = "myuser";
@@ -80,8 +165,11 @@ class GitHubUserRepositoryServiceTest {
         repository.setDescription("my new repo");
         repository.setPrivate(false);
 
+        long created = report.summary().getActions().get(GitHubRepositoryConvergeRecord.Action.CREATED);
+
         service.applyState(repository);
 
+        Assertions.assertEquals(created + 1, report.summary().getActions().get(GitHubRepositoryConvergeRecord.Action.CREATED));
         WireMock.verify(WireMock.getRequestedFor(
                 urlEqualTo("/repos/myuser/myrepo"))
                     .withHeader("ACCEPT", equalTo("application/vnd.github+json"))
@@ -90,7 +178,7 @@ class GitHubUserRepositoryServiceTest {
                 urlEqualTo("/user/repos"))
                     .withHeader("ACCEPT", equalTo("application/vnd.github+json"))
                     .withHeader("AUTHORIZATION", equalTo("Bearer test-token"))
-                    .withRequestBody(equalToJson("{\"user\":\"myuser\",\"name\":\"myrepo\",\"description\":\"my new repo\",\"private\":false}", true,true)));
+                    .withRequestBody(equalToJson("{\"name\":\"myrepo\",\"description\":\"my new repo\",\"private\":false}", true,true)));
     }
 
     @Test
@@ -105,11 +193,11 @@ class GitHubUserRepositoryServiceTest {
                         .willReturn(ok()
                                 .withHeader("Content-Type", "application/vnd.github+json")
                                 .withResponseBody(
-                                        Body.fromJsonBytes("{\"user\":\"myuser\",\"name\":\"myrepo\",\"description\":\"my new repo\",\"private\":false}".getBytes()))));
+                                        Body.fromJsonBytes("{\"user\":\"myuser\",\"name\":\"myrepo\",\"description\":\"my old repo\",\"private\":false}".getBytes()))));
         WireMock.stubFor(patch(urlEqualTo("/repos/myuser/myrepo"))
                 .withHeader("ACCEPT", equalTo("application/vnd.github+json"))
                 .withHeader("AUTHORIZATION", equalTo("Bearer test-token"))
-                .withRequestBody(equalToJson("{\"user\":\"myuser\",\"name\":\"myrepo\",\"description\":\"my new repo\",\"private\":false}", true,true))
+                .withRequestBody(equalToJson("{\"description\":\"my new repo\"}"))
                 .willReturn(
                         created()
                                 .withHeader("Content-Type", "application/vnd.github+json")
@@ -132,7 +220,7 @@ class GitHubUserRepositoryServiceTest {
                         urlEqualTo("/repos/myuser/myrepo"))
                 .withHeader("ACCEPT", equalTo("application/vnd.github+json"))
                 .withHeader("AUTHORIZATION", equalTo("Bearer test-token"))
-                .withRequestBody(equalToJson("{\"name\":\"myrepo\",\"description\":\"my new repo\",\"private\":false}", true,true)));
+                .withRequestBody(equalToJson("{\"description\":\"my new repo\"}")));
     }
 
     @Test
@@ -152,11 +240,14 @@ class GitHubUserRepositoryServiceTest {
         repository.setDescription("my new repo");
         repository.setPrivate(false);
 
+        long failed = report.summary().getActions().get(GitHubRepositoryConvergeRecord.Action.FAILED);
+
         BootOpsException thrown = Assertions.assertThrows(BootOpsException.class, () -> {
             service.applyState(repository);
         });
 
         Assertions.assertEquals("Unable to retrieve the GitHub repository /repos/myuser/myrepo", thrown.getMessage());
+        Assertions.assertEquals(failed + 1, report.summary().getActions().get(GitHubRepositoryConvergeRecord.Action.FAILED));
     }
 
     @Test
@@ -202,11 +293,11 @@ class GitHubUserRepositoryServiceTest {
                         .willReturn(ok()
                                 .withHeader("Content-Type", "application/vnd.github+json")
                                 .withResponseBody(
-                                        Body.fromJsonBytes("{\"user\":\"myuser\",\"name\":\"myrepo\",\"description\":\"my new repo\",\"private\":false}".getBytes()))));
+                                        Body.fromJsonBytes("{\"user\":\"myuser\",\"name\":\"myrepo\",\"description\":\"my old repo\",\"private\":false}".getBytes()))));
         WireMock.stubFor(patch(urlEqualTo("/repos/myuser/myrepo"))
                 .withHeader("ACCEPT", equalTo("application/vnd.github+json"))
                 .withHeader("AUTHORIZATION", equalTo("Bearer test-token"))
-                .withRequestBody(equalToJson("{\"user\":\"myuser\",\"name\":\"myrepo\",\"description\":\"my new repo\",\"private\":false}", true,true))
+                .withRequestBody(equalToJson("{\"description\":\"my new repo\"}"))
                 .willReturn(unauthorized()));
 
         GitHubUserRepository repository = new GitHubUserRepository();
@@ -222,9 +313,525 @@ class GitHubUserRepositoryServiceTest {
         Assertions.assertEquals("Unable to update the GitHub repository /repos/myuser/myrepo", thrown.getMessage());
     }
 
+    @Test
+    public void testApplyState_whenRepositoryUnchanged_thenDoNotWrite() {
+        WireMock
+                .stubFor(get("/repos/myuser/myrepo")
+                        .willReturn(ok()
+                                .withHeader("Content-Type", "application/vnd.github+json")
+                                .withResponseBody(
+                                        Body.fromJsonBytes("{\"name\":\"myrepo\",\"description\":\"my repo\",\"private\":false,\"topics\":[\"java\",\"ops\"],\"default_branch\":\"main\"}".getBytes()))));
+
+        GitHubUserRepository repository = new GitHubUserRepository();
+        repository.setUser("myuser");
+        repository.setName("myrepo");
+        repository.setDescription("my repo");
+        repository.setPrivate(false);
+        repository.setTopics(Arrays.asList("ops", "java"));
+        repository.setDefaultBranch("main");
+
+        long unchanged = report.summary().getActions().get(GitHubRepositoryConvergeRecord.Action.UNCHANGED);
+
+        service.applyState(repository);
+
+        Assertions.assertEquals(unchanged + 1, report.summary().getActions().get(GitHubRepositoryConvergeRecord.Action.UNCHANGED));
+        WireMock.verify(0, WireMock.patchRequestedFor(urlEqualTo("/repos/myuser/myrepo")));
+        WireMock.verify(0, WireMock.putRequestedFor(urlEqualTo("/repos/myuser/myrepo/topics")));
+    }
+
+    @Test
+    public void testApplyState_whenSettingsChanged_thenCombineIntoSingleUpdate() {
+        WireMock
+                .stubFor(get("/repos/myuser/myrepo")
+                        .willReturn(ok()
+                                .withHeader("Content-Type", "application/vnd.github+json")
+                                .withResponseBody(
+                                        Body.fromJsonBytes("{\"name\":\"myrepo\",\"description\":\"my repo\",\"private\":false,\"default_branch\":\"master\",\"allow_merge_commit\":true,\"allow_squash_merge\":true,\"archived\":false}".getBytes()))));
+        WireMock.stubFor(patch(urlEqualTo("/repos/myuser/myrepo"))
+                .willReturn(ok()));
+
+        GitHubUserRepository repository = new GitHubUserRepository();
+        repository.setUser("myuser");
+        repository.setName("myrepo");
+        repository.setDescription("my repo");
+        repository.setDefaultBranch("main");
+        repository.setAllowMergeCommit(false);
+        repository.setAllowSquashMerge(true);
+        repository.setArchived(true);
+
+        service.applyState(repository);
+
+        WireMock.verify(1, WireMock.patchRequestedFor(urlEqualTo("/repos/myuser/myrepo"))
+                .withRequestBody(equalToJson("{\"default_branch\":\"main\",\"allow_merge_commit\":false,\"archived\":true}")));
+    }
+
+    @Test
+    public void testApplyState_whenOnlyTopicsChanged_thenReplaceTopicsWithoutUpdate() {
+        WireMock
+                .stubFor(get("/repos/myuser/myrepo")
+                        .willReturn(ok()
+                                .withHeader("Content-Type", "application/vnd.github+json")
+                                .withResponseBody(
+                                        Body.fromJsonBytes("{\"name\":\"myrepo\",\"description\":\"my repo\",\"topics\":[\"java\"]}".getBytes()))));
+        WireMock.stubFor(put(urlEqualTo("/repos/myuser/myrepo/topics"))
+                .willReturn(ok()));
+
+        GitHubUserRepository repository = new GitHubUserRepository();
+        repository.setUser("myuser");
+        repository.setName("myrepo");
+        repository.setDescription("my repo");
+        repository.setTopics(Arrays.asList("Java", "ops"));
+
+        service.applyState(repository);
+
+        WireMock.verify(1, WireMock.putRequestedFor(urlEqualTo("/repos/myuser/myrepo/topics"))
+                .withRequestBody(equalToJson("{\"names\":[\"java\",\"ops\"]}")));
+        WireMock.verify(0, WireMock.patchRequestedFor(urlEqualTo("/repos/myuser/myrepo")));
+    }
+
+    @Test
+    public void testApplyState_whenBranchUnprotected_thenProtectDefaultBranch() {
+        WireMock
+                .stubFor(get("/repos/myuser/myrepo")
+                        .willReturn(ok()
+                                .withHeader("Content-Type", "application/vnd.github+json")
+                                .withResponseBody(
+                                        Body.fromJsonBytes("{\"name\":\"myrepo\",\"default_branch\":\"main\"}".getBytes()))));
+        WireMock.stubFor(get("/repos/myuser/myrepo/branches/main/protection")
+                .willReturn(notFound()));
+        WireMock.stubFor(put(urlEqualTo("/repos/myuser/myrepo/branches/main/protection"))
+                .willReturn(ok()));
+
+        GitHubBranchProtection protection = new GitHubBranchProtection();
+        protection.setRequiredApprovingReviewCount(1);
+        protection.setEnforceAdmins(true);
+
+        GitHubUserRepository repository = new GitHubUserRepository();
+        repository.setUser("myuser");
+        repository.setName("myrepo");
+        repository.setBranchProtection(protection);
+
+        service.applyState(repository);
+
+        WireMock.verify(1, WireMock.putRequestedFor(urlEqualTo("/repos/myuser/myrepo/branches/main/protection"))
+                .withRequestBody(equalToJson("{\"required_status_checks\":null,\"enforce_admins\":true,"
+                        + "\"required_pull_request_reviews\":{\"dismiss_stale_reviews\":false,\"require_code_owner_reviews\":false,\"required_approving_review_count\":1},"
+                        + "\"restrictions\":null,\"allow_force_pushes\":false,\"allow_deletions\":false}")));
+        WireMock.verify(0, WireMock.patchRequestedFor(urlEqualTo("/repos/myuser/myrepo")));
+    }
+
+    @Test
+    public void testApplyState_whenBranchProtectionMatches_thenDoNotWrite() {
+        WireMock
+                .stubFor(get("/repos/myuser/myrepo")
+                        .willReturn(ok()
+                                .withHeader("Content-Type", "application/vnd.github+json")
+                                .withResponseBody(
+                                        Body.fromJsonBytes("{\"name\":\"myrepo\",\"default_branch\":\"main\"}".getBytes()))));
+        WireMock.stubFor(get("/repos/myuser/myrepo/branches/main/protection")
+                .willReturn(ok()
+                        .withHeader("Content-Type", "application/vnd.github+json")
+                        .withResponseBody(
+                                Body.fromJsonBytes(("{\"required_pull_request_reviews\":{\"required_approving_review_count\":1},"
+                                        + "\"enforce_admins\":{\"enabled\":true},\"allow_force_pushes\":{\"enabled\":false},"
+                                        + "\"allow_deletions\":{\"enabled\":false}}").getBytes()))));
+
+        GitHubBranchProtection protection = new GitHubBranchProtection();
+        protection.setRequiredApprovingReviewCount(1);
+        protection.setEnforceAdmins(true);
+
+        GitHubUserRepository repository = new GitHubUserRepository();
+        repository.setUser("myuser");
+        repository.setName("myrepo");
+        repository.setBranchProtection(protection);
+
+        service.applyState(repository);
+
+        WireMock.verify(0, WireMock.putRequestedFor(urlEqualTo("/repos/myuser/myrepo/branches/main/protection")));
+    }
+
+    @Test
+    public void testApplyState_whenBranchPushesRestricted_thenRestrictionsKept() {
+        WireMock
+                .stubFor(get("/repos/myuser/myrepo")
+                        .willReturn(ok()
+                                .withHeader("Content-Type", "application/vnd.github+json")
+                                .withResponseBody(
+                                        Body.fromJsonBytes("{\"name\":\"myrepo\",\"default_branch\":\"main\"}".getBytes()))));
+        WireMock.stubFor(get("/repos/myuser/myrepo/branches/main/protection")
+                .willReturn(ok()
+                        .withHeader("Content-Type", "application/vnd.github+json")
+                        .withResponseBody(
+                                Body.fromJsonBytes(("{\"enforce_admins\":{\"enabled\":false},"
+                                        + "\"restrictions\":{\"users\":[{\"login\":\"octocat\"}],\"teams\":[{\"slug\":\"ops\"}],\"apps\":[]},"
+                                        + "\"allow_force_pushes\":{\"enabled\":false},\"allow_deletions\":{\"enabled\":false}}").getBytes()))));
+        WireMock.stubFor(put(urlEqualTo("/repos/myuser/myrepo/branches/main/protection"))
+                .willReturn(ok()));
+
+        GitHubBranchProtection protection = new GitHubBranchProtection();
+        protection.setEnforceAdmins(true);
+
+        GitHubUserRepository repository = new GitHubUserRepository();
+        repository.setUser("myuser");
+        repository.setName("myrepo");
+        repository.setBranchProtection(protection);
+
+        service.applyState(repository);
+
+        WireMock.verify(1, WireMock.putRequestedFor(urlEqualTo("/repos/myuser/myrepo/branches/main/protection"))
+                .withRequestBody(matchingJsonPath("$.enforce_admins", equalTo("true")))
+                .withRequestBody(matchingJsonPath("$.restrictions.users[0]", equalTo("octocat")))
+                .withRequestBody(matchingJsonPath("$.restrictions.teams[0]", equalTo("ops"))));
+    }
+
+    @Test
+    public void testApplyState_whenRepositoryStaysArchived_thenNothingWritten() {
+        WireMock
+                .stubFor(get("/repos/myuser/myrepo")
+                        .willReturn(ok()
+                                .withHeader("Content-Type", "application/vnd.github+json")
+                                .withResponseBody(
+                                        Body.fromJsonBytes("{\"name\":\"myrepo\",\"archived\":true,\"default_branch\":\"main\",\"topics\":[]}".getBytes()))));
+
+        GitHubBranchProtection protection = new GitHubBranchProtection();
+        protection.setEnforceAdmins(true);
+
+        GitHubUserRepository repository = new GitHubUserRepository();
+        repository.setUser("myuser");
+        repository.setName("myrepo");
+        repository.setArchived(true);
+        repository.setDescription("changed");
+        repository.setTopics(Collections.singletonList("ops"));
+        repository.setBranchProtection(protection);
+
+        service.applyState(repository);
+
+        WireMock.verify(0, WireMock.patchRequestedFor(urlEqualTo("/repos/myuser/myrepo")));
+        WireMock.verify(0, WireMock.putRequestedFor(urlEqualTo("/repos/myuser/myrepo/topics")));
+        WireMock.verify(0, WireMock.getRequestedFor(urlEqualTo("/repos/myuser/myrepo/branches/main/protection")));
+        WireMock.verify(0, WireMock.putRequestedFor(urlEqualTo("/repos/myuser/myrepo/branches/main/protection")));
+    }
+
+    @Test
+    public void testApplyState_whenUnarchivedWithTopics_thenUnarchiveBeforeReplacingTopics() {
+        WireMock
+                .stubFor(get("/repos/myuser/myrepo")
+                        .willReturn(ok()
+                                .withHeader("Content-Type", "application/vnd.github+json")
+                                .withResponseBody(
+                                        Body.fromJsonBytes("{\"name\":\"myrepo\",\"archived\":true,\"topics\":[]}".getBytes()))));
+        WireMock.stubFor(patch(urlEqualTo("/repos/myuser/myrepo"))
+                .inScenario("unarchive")
+                .whenScenarioStateIs(Scenario.STARTED)
+                .willReturn(ok())
+                .willSetStateTo("unarchived"));
+        WireMock.stubFor(put(urlEqualTo("/repos/myuser/myrepo/topics"))
+                .inScenario("unarchive")
+                .whenScenarioStateIs(Scenario.STARTED)
+                .willReturn(forbidden()));
+        WireMock.stubFor(put(urlEqualTo("/repos/myuser/myrepo/topics"))
+                .inScenario("unarchive")
+                .whenScenarioStateIs("unarchived")
+                .willReturn(ok()));
+
+        GitHubUserRepository repository = new GitHubUserRepository();
+        repository.setUser("myuser");
+        repository.setName("myrepo");
+        repository.setArchived(false);
+        repository.setTopics(Collections.singletonList("ops"));
+
+        service.applyState(repository);
+
+        WireMock.verify(1, WireMock.patchRequestedFor(urlEqualTo("/repos/myuser/myrepo"))
+                .withRequestBody(equalToJson("{\"archived\":false}")));
+        WireMock.verify(1, WireMock.putRequestedFor(urlEqualTo("/repos/myuser/myrepo/topics"))
+                .withRequestBody(equalToJson("{\"names\":[\"ops\"]}")));
+    }
+
+    @Test
+    public void testApplyState_whenNameNull_thenFailureRecordedAndThrowBootOpsException() {
+        long failed = report.summary().getActions().get(GitHubRepositoryConvergeRecord.Action.FAILED);
+
+        GitHubUserRepository repository = new GitHubUserRepository();
+        repository.setUser("myuser");
+
+        BootOpsException thrown = Assertions.assertThrows(BootOpsException.class, () -> {
+            service.applyState(repository);
+        });
+
+        Assertions.assertEquals("Unable to converge a GitHub repository without a name", thrown.getMessage());
+        Assertions.assertEquals(failed + 1, (long) report.summary().getActions().get(GitHubRepositoryConvergeRecord.Action.FAILED));
+        Assertions.assertTrue(service.getInFlight().isEmpty());
+        WireMock.verify(0, WireMock.anyRequestedFor(WireMock.anyUrl()));
+    }
+
+    @Test
+    public void testApplyState_whenDefaultBranchUnknown_thenThrowBootOpsException() {
+        WireMock
+                .stubFor(get("/repos/myuser/myrepo")
+                        .willReturn(notFound()));
+        WireMock.stubFor(post("/user/repos")
+                .willReturn(created()));
+
+        GitHubBranchProtection protection = new GitHubBranchProtection();
+        protection.setEnforceAdmins(true);
+
+        GitHubUserRepository repository = new GitHubUserRepository();
+        repository.setUser("myuser");
+        repository.setName("myrepo");
+        repository.setBranchProtection(protection);
+
+        BootOpsException thrown = Assertions.assertThrows(BootOpsException.class, () -> {
+            service.applyState(repository);
+        });
+
+        Assertions.assertEquals("Unable to protect the default branch of the GitHub repository /repos/myuser/myrepo "
+                + "as its default branch is unknown", thrown.getMessage());
+        WireMock.verify(2, WireMock.getRequestedFor(urlEqualTo("/repos/myuser/myrepo")));
+    }
+
+    @Test
+    public void testApplyState_whenCreatedWithoutResponseBody_thenProtectDefaultBranchRetrievedAgain() {
+        WireMock
+                .stubFor(get("/repos/myuser/myrepo")
+                        .inScenario("create")
+                        .whenScenarioStateIs(Scenario.STARTED)
+                        .willReturn(notFound()));
+        WireMock.stubFor(post("/user/repos")
+                .inScenario("create")
+                .whenScenarioStateIs(Scenario.STARTED)
+                .willReturn(created())
+                .willSetStateTo("created"));
+        WireMock
+                .stubFor(get("/repos/myuser/myrepo")
+                        .inScenario("create")
+                        .whenScenarioStateIs("created")
+                        .willReturn(ok()
+                                .withHeader("Content-Type", "application/vnd.github+json")
+                                .withResponseBody(
+                                        Body.fromJsonBytes("{\"name\":\"myrepo\",\"default_branch\":\"main\"}".getBytes()))));
+        WireMock.stubFor(get("/repos/myuser/myrepo/branches/main/protection")
+                .willReturn(notFound()));
+        WireMock.stubFor(put(urlEqualTo("/repos/myuser/myrepo/branches/main/protection"))
+                .willReturn(ok()));
+
+        GitHubBranchProtection protection = new GitHubBranchProtection();
+        protection.setEnforceAdmins(true);
+
+        GitHubUserRepository repository = new GitHubUserRepository();
+        repository.setUser("myuser");
+        repository.setName("myrepo");
+        repository.setBranchProtection(protection);
+
+        service.applyState(repository);
+
+        WireMock.verify(1, WireMock.putRequestedFor(urlEqualTo("/repos/myuser/myrepo/branches/main/protection")));
+    }
+
+    @Test
+    public void testApplyState_whenCreatedWithTopics_thenReplaceTopicsAfterCreate() {
+        WireMock
+                .stubFor(get("/repos/myuser/myrepo")
+                        .willReturn(notFound()));
+        WireMock.stubFor(post("/user/repos")
+                .willReturn(
+                        created()
+                                .withHeader("Content-Type", "application/vnd.github+json")
+                                .withResponseBody(
+                                        Body.fromJsonBytes("{\"name\":\"myrepo\",\"private\":false,\"topics\":[]}".getBytes()))));
+        WireMock.stubFor(put(urlEqualTo("/repos/myuser/myrepo/topics"))
+                .willReturn(ok()));
+
+        GitHubUserRepository repository = new GitHubUserRepository();
+        repository.setUser("myuser");
+        repository.setName("myrepo");
+        repository.setPrivate(false);
+        repository.setTopics(Collections.singletonList("ops"));
+
+        service.applyState(repository);
+
+        WireMock.verify(1, WireMock.postRequestedFor(urlEqualTo("/user/repos"))
+                .withRequestBody(equalToJson("{\"name\":\"myrepo\",\"private\":false}")));
+        WireMock.verify(1, WireMock.putRequestedFor(urlEqualTo("/repos/myuser/myrepo/topics"))
+                .withRequestBody(equalToJson("{\"names\":[\"ops\"]}")));
+        WireMock.verify(0, WireMock.patchRequestedFor(urlEqualTo("/repos/myuser/myrepo")));
+    }
+
+    @Test
+    public void testApplyState_whenConvergedThroughListener_thenRequestSpansAreChildrenOfConvergeSpan() {
+        WireMock
+                .stubFor(get("/repos/myuser/myrepo")
+                        .willReturn(ok()
+                                .withHeader("Content-Type", "application/vnd.github+json")
+                                .withResponseBody(
+                                        Body.fromJsonBytes("{\"user\":\"myuser\",\"name\":\"myrepo\",\"description\":\"my old repo\",\"private\":false}".getBytes()))));
+        WireMock.stubFor(patch(urlEqualTo("/repos/myuser/myrepo"))
+                .willReturn(
+                        ok()
+                                .withHeader("Content-Type", "application/vnd.github+json")
+                                .withResponseBody(
+                                        Body.fromJsonBytes("{\"user\":\"myuser\",\"name\":\"myrepo\",\"description\":\"my new repo\",\"private\":false}".getBytes()))));
+
+        GitHubUserRepository repository = new GitHubUserRepository();
+        repository.setUser("myuser");
+        repository.setName("myrepo");
+        repository.setDescription("my new repo");
+        repository.setPrivate(false);
+
+        Item item = mock(Item.class);
+        ItemConvergeInitiatedEvent event = mock(ItemConvergeInitiatedEvent.class);
+        AttributeRetriever<GitHubUserRepository> retriever = mock(AttributeRetriever.class);
+        when(event.getItem()).thenReturn(item);
+        when(retriever.retrieve(item)).thenReturn(Optional.of(repository));
+        tracer.getSpans().clear();
+
+        new GitHubUserRepositoryConvergeInitiatedEventListener(service, retriever, observationRegistry).onApplicationEvent(event);
+
+        SimpleSpan converge = findSpan("converge github-user-repository");
+        SimpleSpan lookup = findSpan("GET /repos/{owner}/{name}");
+        SimpleSpan update = findSpan("PATCH /repos/{owner}/{name}");
+
+        Assertions.assertEquals(3, tracer.getSpans().size());
+        Assertions.assertEquals(converge.getSpanId(), lookup.getParentId());
+        Assertions.assertEquals(converge.getSpanId(), update.getParentId());
+        Assertions.assertEquals("myuser/myrepo", converge.getTags().get("github.repository"));
+        Assertions.assertEquals("myuser/myrepo", lookup.getTags().get("github.repository"));
+        Assertions.assertEquals("200", lookup.getTags().get("http.status"));
+        Assertions.assertEquals("PATCH", update.getTags().get("http.method"));
+        Assertions.assertEquals("200", update.getTags().get("http.status"));
+    }
+
+    @Test
+    public void testApplyState_whenRequestSent_thenObservationInReactorContextOfExchange() {
+        WireMock
+                .stubFor(get("/repos/myuser/myrepo")
+                        .willReturn(ok()
+                                .withHeader("Content-Type", "application/vnd.github+json")
+                                .withResponseBody(
+                                        Body.fromJsonBytes("{\"name\":\"myrepo\",\"private\":false}".getBytes()))));
+        AtomicReference<Observation> propagated = new AtomicReference<>();
+        WebClient webClient = WebClient.builder()
+                .filter((request, next) -> Mono.deferContextual(context -> {
+                    propagated.set(context.getOrDefault(ObservationThreadLocalAccessor.KEY, null));
+                    return next.exchange(request);
+                }))
+                .build();
+        GitHubUserRepositoryService observedService = new GitHubUserRepositoryService(webClient, new GitHubConvergeReport(),
+                observationRegistry, new GitHubRequestScheduler(new GitHubServiceProperties.Scheduler(), new SimpleMeterRegistry()),
+                new GitHubRepositoryUris("http://localhost:8089", 10));
+
+        GitHubUserRepository repository = new GitHubUserRepository();
+        repository.setUser("myuser");
+        repository.setName("myrepo");
+        tracer.getSpans().clear();
+
+        observedService.applyState(repository);
+
+        Assertions.assertNotNull(propagated.get());
+        Assertions.assertEquals(GitHubUserRepositoryService.REQUEST_OBSERVATION_NAME, propagated.get().getContext().getName());
+        Assertions.assertEquals("GET /repos/{owner}/{name}", propagated.get().getContext().getContextualName());
+        Assertions.assertEquals("myuser/myrepo", findSpan("GET /repos/{owner}/{name}").getTags().get("github.repository"));
+    }
+
+    @Test
+    public void testApplyState_whenRequestFails_thenSpanRecordsStatusAndError() {
+        WireMock
+                .stubFor(get("/repos/myuser/myrepo")
+                        .willReturn(unauthorized()));
+
+        GitHubUserRepository repository = new GitHubUserRepository();
+        repository.setUser("myuser");
+        repository.setName("myrepo");
+        tracer.getSpans().clear();
+
+        Assertions.assertThrows(BootOpsException.class, () -> {
+            service.applyState(repository);
+        });
+
+        SimpleSpan lookup = findSpan("GET /repos/{owner}/{name}");
+        Assertions.assertEquals("401", lookup.getTags().get("http.status"));
+        Assertions.assertNotNull(lookup.getError());
+    }
+
+    @Test
+    public void testApplyState_whenNameNeedsEncoding_thenPathPercentEncoded() {
+        WireMock
+                .stubFor(get(urlEqualTo("/repos/myuser/my%20repo+1"))
+                        .willReturn(ok()
+                                .withHeader("Content-Type", "application/vnd.github+json")
+                                .withResponseBody(
+                                        Body.fromJsonBytes("{\"name\":\"my repo+1\",\"description\":\"my old repo\",\"private\":false}".getBytes()))));
+        WireMock
+                .stubFor(patch(urlEqualTo("/repos/myuser/my%20repo+1"))
+                        .willReturn(ok()));
+
+        GitHubUserRepository repository = new GitHubUserRepository();
+        repository.setUser("myuser");
+        repository.setName("my repo+1");
+        repository.setDescription("my new repo");
+
+        service.applyState(repository);
+
+        WireMock.verify(WireMock.patchRequestedFor(urlEqualTo("/repos/myuser/my%20repo+1"))
+                .withHeader("Content-Type", containing("application/json"))
+                .withRequestBody(equalToJson("{\"description\":\"my new repo\"}")));
+    }
+
+    @Test
+    public void testApplyState_whenRateLimited_thenRetryAfterDelay() {
+        WireMock
+                .stubFor(get("/repos/myuser/myrepo")
+                        .inScenario("rate-limit")
+                        .whenScenarioStateIs(Scenario.STARTED)
+                        .willReturn(aResponse()
+                                .withStatus(429)
+                                .withHeader("Retry-After", "1"))
+                        .willSetStateTo("recovered"));
+        WireMock
+                .stubFor(get("/repos/myuser/myrepo")
+                        .inScenario("rate-limit")
+                        .whenScenarioStateIs("recovered")
+                        .willReturn(ok()
+                                .withHeader("Content-Type", "application/vnd.github+json")
+                                .withResponseBody(
+                                        Body.fromJsonBytes("{\"name\":\"myrepo\",\"description\":\"my repo\",\"private\":false}".getBytes()))));
+
+        GitHubUserRepository repository = new GitHubUserRepository();
+        repository.setUser("myuser");
+        repository.setName("myrepo");
+        repository.setDescription("my repo");
+        tracer.getSpans().clear();
+
+        service.applyState(repository, GitHubRequestScheduler.Priority.INTERACTIVE);
+
+        WireMock.verify(2, WireMock.getRequestedFor(urlEqualTo("/repos/myuser/myrepo")));
+        SimpleSpan lookup = findSpan("GET /repos/{owner}/{name}");
+        Assertions.assertEquals("1", lookup.getTags().get("github.retry.count"));
+        Assertions.assertEquals("interactive", lookup.getTags().get("github.lane"));
+        Assertions.assertTrue(Long.parseLong(lookup.getTags().get("github.ratelimit.wait")) >= 900);
+    }
+
+    private SimpleSpan findSpan(String name) {
+        return tracer.getSpans().stream()
+                .filter(span -> name.equals(span.getName()))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("No span named " + name));
+    }
+
     @SpringBootApplication
     static class TestApplication {
 
+        @Bean
+        public SimpleTracer simpleTracer() {
+            return new SimpleTracer();
+        }
+
+        @Bean
+        public ObservationRegistry observationRegistry(SimpleTracer tracer) {
+            ObservationRegistry registry = ObservationRegistry.create();
+            registry.observationConfig().observationHandler(new DefaultTracingObservationHandler(tracer));
+            return registry;
+        }
     }
 
     static class TestApplicationContextInitializer implements ApplicationContextInitializer<ConfigurableApplicationContext>
@@ -15,12 +15,18 @@
  */
 package com.github.kirksc1.bootops.github.repository;
 
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
+
+import static java.lang.Boolean.FALSE;
 import static java.lang.Boolean.TRUE;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 class GitHubUserRepositoryTest {
 
@@ -33,6 +39,16 @@ class GitHubUserRepositoryTest {
         assertNull(repository.getName());
         assertNull(repository.getDescription());
         assertNull(repository.isPrivate());
+        assertNull(repository.getVisibility());
+        assertNull(repository.getTopics());
+        assertNull(repository.getDefaultBranch());
+        assertNull(repository.getAllowMergeCommit());
+        assertNull(repository.getAllowSquashMerge());
+        assertNull(repository.getAllowRebaseMerge());
+        assertNull(repository.getDeleteBranchOnMerge());
+        assertNull(repository.getArchived());
+        assertNull(repository.getBranchProtection());
+        assertNull(repository.getPriority());
     }
 
     @Test
@@ -75,4 +91,82 @@ class GitHubUserRepositoryTest {
         assertEquals(TRUE, repository.isPrivate());
     }
 
+    @Test
+    public void testGetVisibility_whenValueSet_thenValueGettable() {
+        GitHubUserRepository repository = new GitHubUserRepository();
+
+        repository.setVisibility("internal");
+        assertEquals("internal", repository.getVisibility());
+    }
+
+    @Test
+    public void testGetTopics_whenValueSet_thenValueGettable() {
+        GitHubUserRepository repository = new GitHubUserRepository();
+
+        repository.setTopics(Arrays.asList("java", "ops"));
+        assertEquals(Arrays.asList("java", "ops"), repository.getTopics());
+    }
+
+    @Test
+    public void testGetDefaultBranch_whenValueSet_thenValueGettable() {
+        GitHubUserRepository repository = new GitHubUserRepository();
+
+        repository.setDefaultBranch("main");
+        assertEquals("main", repository.getDefaultBranch());
+    }
+
+    @Test
+    public void testGetMergeOptions_whenValuesSet_thenValuesGettable() {
+        GitHubUserRepository repository = new GitHubUserRepository();
+
+        repository.setAllowMergeCommit(TRUE);
+        repository.setAllowSquashMerge(FALSE);
+        repository.setAllowRebaseMerge(TRUE);
+        repository.setDeleteBranchOnMerge(FALSE);
+        assertEquals(TRUE, repository.getAllowMergeCommit());
+        assertEquals(FALSE, repository.getAllowSquashMerge());
+        assertEquals(TRUE, repository.getAllowRebaseMerge());
+        assertEquals(FALSE, repository.getDeleteBranchOnMerge());
+    }
+
+    @Test
+    public void testGetArchived_whenValueSet_thenValueGettable() {
+        GitHubUserRepository repository = new GitHubUserRepository();
+
+        repository.setArchived(TRUE);
+        assertEquals(TRUE, repository.getArchived());
+    }
+
+    @Test
+    public void testGetBranchProtection_whenValueSet_thenValueGettable() {
+        GitHubUserRepository repository = new GitHubUserRepository();
+        GitHubBranchProtection protection = new GitHubBranchProtection();
+
+        repository.setBranchProtection(protection);
+        assertSame(protection, repository.getBranchProtection());
+    }
+
+    @Test
+    public void testDeserialize_whenGitHubResponse_thenSnakeCaseSettingsRead() throws Exception {
+        GitHubUserRepository repository = new ObjectMapper()
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+                .readValue("{\"name\":\"myrepo\",\"default_branch\":\"main\",\"allow_merge_commit\":false,"
+                        + "\"allow_squash_merge\":true,\"allow_rebase_merge\":false,\"delete_branch_on_merge\":true,"
+                        + "\"owner\":{\"login\":\"myuser\"}}", GitHubUserRepository.class);
+
+        assertEquals("main", repository.getDefaultBranch());
+        assertEquals(FALSE, repository.getAllowMergeCommit());
+        assertEquals(TRUE, repository.getAllowSquashMerge());
+        assertEquals(FALSE, repository.getAllowRebaseMerge());
+        assertEquals(TRUE, repository.getDeleteBranchOnMerge());
+    }
+
+    @Test
+    public void testDeserialize_whenPriorityLowercase_thenPriorityRead() throws Exception {
+        GitHubUserRepository repository = new ObjectMapper()
+                .readValue("{\"user\":\"myuser\",\"name\":\"myrepo\",\"priority\":\"interactive\"}", GitHubUserRepository.class);
+
+        assertEquals(GitHubRequestScheduler.Priority.INTERACTIVE, repository.getPriority());
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.kirksc1.bootops.github.repository;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    public void testGetPercentile_whenEmpty_thenZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getPercentile(0.99));
+    }
+
+    @Test
+    public void testGetPercentile_whenSmallValuesRecorded_thenExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 10; i++) {
+            histogram.record(i);
+        }
+
+        assertEquals(10, histogram.getCount());
+        assertEquals(5, histogram.getPercentile(0.50));
+        assertEquals(10, histogram.getPercentile(0.99));
+        assertEquals(10, histogram.getMax());
+    }
+
+    @Test
+    public void testGetPercentile_whenLargeValuesRecorded_thenWithinBucketError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 1000; i++) {
+            histogram.record(i * 1_000_000L);
+        }
+
+        assertEquals(500_000_000L, histogram.getPercentile(0.50), 500_000_000L * 0.07);
+        assertEquals(950_000_000L, histogram.getPercentile(0.95), 950_000_000L * 0.07);
+        assertEquals(990_000_000L, histogram.getPercentile(0.99), 990_000_000L * 0.07);
+        assertEquals(1_000_000_000L, histogram.getMax());
+    }
+
+    @Test
+    public void testRecord_whenNegative_thenRecordedAsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        histogram.record(-5);
+
+        assertEquals(1, histogram.getCount());
+        assertEquals(0, histogram.getPercentile(0.50));
+    }
+
+    @Test
+    public void testIndexOf_whenValueAtBucketBounds_thenUpperBoundContainsValue() {
+        long[] values = { 0, 15, 16, 31, 32, 33, 1_000, 123_456_789L, Long.MAX_VALUE };
+        for (long value : values) {
+            int index = LatencyHistogram.indexOf(value);
+
+            assertTrue(LatencyHistogram.upperBoundOf(index) >= value);
+            assertTrue(index == 0 || LatencyHistogram.upperBoundOf(index - 1) < value);
+        }
+    }
+}
@@ -0,0 +1,756 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.kirksc1.bootops.github.repository;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * GitHubSimulator is an in-process stand-in for the GitHub REST API, used to load and soak test the GitHub
+ * integration without stubbing each request.  It keeps the state of every repository it is sent, so a converge
+ * sees the effects of earlier converges.
+ * <p>
+ * The following endpoints are simulated:
+ * <ul>
+ *     <li>GET, PATCH and DELETE /repos/{owner}/{name}</li>
+ *     <li>PUT /repos/{owner}/{name}/topics</li>
+ *     <li>GET and PUT /repos/{owner}/{name}/branches/{branch}/protection</li>
+ *     <li>GET and POST /user/repos, for the simulated user's login</li>
+ *     <li>GET and POST /orgs/{org}/repos</li>
+ * </ul>
+ * Listings are paginated with per_page and page query parameters and a Link header.  Every successful GET carries
+ * an ETag, and a request whose If-None-Match matches it is answered with 304 Not Modified without using any of the
+ * rate limit.  Every response carries the X-RateLimit-* headers, and requests sent once the rate limit is exhausted
+ * are rejected with 403 Forbidden until it resets.  Latency and errors can be injected into every response.
+ */
+public class GitHubSimulator implements Closeable {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String JSON_CONTENT_TYPE = "application/json; charset=utf-8";
+    private static final int DEFAULT_PAGE_SIZE = 30;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final List<String> UPDATABLE_SETTINGS = Arrays.asList("description", "default_branch",
+            "allow_merge_commit", "allow_squash_merge", "allow_rebase_merge", "delete_branch_on_merge", "archived");
+
+    /**
+     * The login of the authenticated user, owning the repositories created through /user/repos.
+     */
+    @Getter
+    private final String login;
+
+    /**
+     * The token requests must be authorized with, when null any token is accepted.
+     */
+    @Setter
+    private volatile String token;
+
+    /**
+     * The number of requests allowed in each rate limit window.
+     */
+    @Setter
+    private volatile long rateLimit = 5000;
+
+    /**
+     * The length of each rate limit window.
+     */
+    @Setter
+    private volatile Duration rateLimitWindow = Duration.ofHours(1);
+
+    /**
+     * The latency added to every response.
+     */
+    @Setter
+    private volatile Duration latency = Duration.ZERO;
+
+    /**
+     * The upper bound of the uniformly distributed latency added to every response on top of the fixed latency.
+     */
+    @Setter
+    private volatile Duration latencyJitter = Duration.ZERO;
+
+    /**
+     * The fraction of requests, between 0 and 1, answered with the error status instead of being processed.
+     */
+    @Setter
+    private volatile double errorRate;
+
+    /**
+     * The status of the injected errors.  A 403 or 429 is sent with a Retry-After header, like GitHub's secondary
+     * rate limit.
+     */
+    @Setter
+    private volatile int errorStatus = 500;
+
+    /**
+     * The Retry-After, in seconds, of injected 403 and 429 errors.
+     */
+    @Setter
+    private volatile int errorRetryAfterSeconds = 1;
+
+    private final NavigableMap<String, SimulatedRepository> repositories = new ConcurrentSkipListMap<>();
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final LongAdder requestCount = new LongAdder();
+    private final Random random;
+
+    private final Object rateLimitLock = new Object();
+    private long used;
+    private long resetAtMillis;
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * Construct a new instance for the provided user login.
+     * @param login The login of the authenticated user.
+     */
+    public GitHubSimulator(String login) {
+        this(login, new Random());
+    }
+
+    /**
+     * Construct a new instance for the provided user login, drawing latency and errors from the provided source
+     * of randomness so that runs can be repeated.
+     * @param login The login of the authenticated user.
+     * @param random The source of randomness.
+     */
+    public GitHubSimulator(String login, Random random) {
+        if (login == null) {
+            throw new IllegalArgumentException("The login provided was null");
+        }
+        if (random == null) {
+            throw new IllegalArgumentException("The Random provided was null");
+        }
+        this.login = login;
+        this.random = random;
+    }
+
+    /**
+     * Start serving requests on an ephemeral port of the loopback interface.
+     * @return This simulator.
+     */
+    public GitHubSimulator start() {
+        try {
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to start the GitHub simulator", e);
+        }
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "github-simulator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+        return this;
+    }
+
+    /**
+     * Retrieve the base URL to configure github.service.base-url with.
+     * @return The base URL of the simulator.
+     */
+    public String getBaseUrl() {
+        return "http://" + server.getAddress().getAddress().getHostAddress() + ":" + server.getAddress().getPort();
+    }
+
+    /**
+     * Build the request URIs of the simulator, caching as many repositories as the GitHub service defaults.
+     * @return The request URIs.
+     */
+    public GitHubRepositoryUris newUris() {
+        return new GitHubRepositoryUris(getBaseUrl(), new GitHubServiceProperties().getUriCacheSize());
+    }
+
+    /**
+     * Build a GitHubUserRepositoryService sending its requests to the simulator through a default scheduler.
+     * @param report The report to record the outcome of each repository converge in.
+     * @return The service.
+     */
+    public GitHubUserRepositoryService newService(GitHubConvergeReport report) {
+        return newService(report, new GitHubRequestScheduler(new GitHubServiceProperties.Scheduler(), new SimpleMeterRegistry()));
+    }
+
+    /**
+     * Build a GitHubUserRepositoryService sending its requests to the simulator through the provided scheduler.
+     * @param report The report to record the outcome of each repository converge in.
+     * @param scheduler The scheduler pacing the requests.
+     * @return The service.
+     */
+    public GitHubUserRepositoryService newService(GitHubConvergeReport report, GitHubRequestScheduler scheduler) {
+        return newService(report, scheduler, newUris());
+    }
+
+    /**
+     * Build a GitHubUserRepositoryService sending its requests to the simulator through the provided scheduler and
+     * URIs, which must have been built by {@link #newUris()}.
+     * @param report The report to record the outcome of each repository converge in.
+     * @param scheduler The scheduler pacing the requests.
+     * @param uris The request URIs of the simulator.
+     * @return The service.
+     */
+    public GitHubUserRepositoryService newService(GitHubConvergeReport report, GitHubRequestScheduler scheduler,
+                                                  GitHubRepositoryUris uris) {
+        return new GitHubUserRepositoryService(WebClient.create(), report, ObservationRegistry.NOOP, scheduler, uris);
+    }
+
+    /**
+     * Stop serving requests.
+     */
+    @Override
+    public void close() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Add a repository without sending a request, e.g. to seed the simulator before a test.
+     * @param owner The owner of the repository.
+     * @param name The name of the repository.
+     * @param settings The settings of the repository, keyed by their GitHub names, e.g. default_branch.
+     */
+    public void addRepository(String owner, String name, Map<String, Object> settings) {
+        SimulatedRepository repository = new SimulatedRepository(nextId.getAndIncrement(), owner, name, "User");
+        repository.update(MAPPER.valueToTree(settings));
+        repositories.put(key(owner, name), repository);
+    }
+
+    /**
+     * Retrieve the current state of a repository, in the form GitHub returns it.
+     * @param owner The owner of the repository.
+     * @param name The name of the repository.
+     * @return The repository, or null if it does not exist.
+     */
+    public Map<String, Object> getRepository(String owner, String name) {
+        SimulatedRepository repository = repositories.get(key(owner, name));
+        if (repository == null) {
+            return null;
+        }
+        synchronized (repository) {
+            return MAPPER.convertValue(repository.toJson(), MAPPER.getTypeFactory().constructMapType(LinkedHashMap.class, String.class, Object.class));
+        }
+    }
+
+    /**
+     * Retrieve the number of repositories held.
+     * @return The number of repositories.
+     */
+    public int getRepositoryCount() {
+        return repositories.size();
+    }
+
+    /**
+     * Retrieve the number of requests received, including those rejected.
+     * @return The number of requests.
+     */
+    public long getRequestCount() {
+        return requestCount.sum();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requestCount.increment();
+        try {
+            byte[] requestBody = readFully(exchange.getRequestBody());
+            delay();
+
+            Response response;
+            if (token != null && !isAuthorized(exchange.getRequestHeaders().getFirst("Authorization"))) {
+                response = Response.message(401, "Bad credentials");
+            } else {
+                response = rateLimited(exchange, requestBody);
+            }
+            send(exchange, response);
+        } catch (RuntimeException e) {
+            send(exchange, Response.message(500, String.valueOf(e.getMessage())));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private Response rateLimited(HttpExchange exchange, byte[] requestBody) {
+        Response response;
+        synchronized (rateLimitLock) {
+            refreshRateLimit();
+            if (used >= rateLimit) {
+                response = Response.message(403, "API rate limit exceeded for user " + login + ".");
+                addRateLimitHeaders(response);
+                return response;
+            }
+            used++;
+        }
+
+        if (errorRate > 0 && nextDouble() < errorRate) {
+            response = Response.message(errorStatus, "Simulated error");
+            if (errorStatus == 403 || errorStatus == 429) {
+                response.headers.put("Retry-After", String.valueOf(errorRetryAfterSeconds));
+            }
+        } else {
+            response = route(exchange.getRequestMethod(), exchange.getRequestURI().getRawPath(),
+                    parseQuery(exchange.getRequestURI().getRawQuery()), requestBody);
+            if ("GET".equals(exchange.getRequestMethod()) && response.status == 200) {
+                String etag = "\"" + Integer.toHexString(Arrays.hashCode(response.body)) + "\"";
+                response.headers.put("ETag", etag);
+                if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                    response = new Response(304, null);
+                    response.headers.put("ETag", etag);
+                    synchronized (rateLimitLock) {
+                        used = Math.max(0, used - 1);
+                    }
+                }
+            }
+        }
+
+        synchronized (rateLimitLock) {
+            addRateLimitHeaders(response);
+        }
+        return response;
+    }
+
+    private Response route(String method, String rawPath, Map<String, String> query, byte[] requestBody) {
+        List<String> segments = new ArrayList<>();
+        for (String segment : rawPath.split("/")) {
+            if (!segment.isEmpty()) {
+                segments.add(URLDecoder.decode(segment.replace("+", "%2B"), StandardCharsets.UTF_8));
+            }
+        }
+
+        if (segments.size() >= 3 && "repos".equals(segments.get(0))) {
+            String owner = segments.get(1);
+            String name = segments.get(2);
+            if (segments.size() == 3) {
+                switch (method) {
+                    case "GET":
+                        return getRepositoryResponse(owner, name);
+                    case "PATCH":
+                        return updateRepository(owner, name, readJson(requestBody));
+                    case "DELETE":
+                        return deleteRepository(owner, name);
+                    default:
+                        break;
+                }
+            } else if (segments.size() == 4 && "topics".equals(segments.get(3)) && "PUT".equals(method)) {
+                return replaceTopics(owner, name, readJson(requestBody));
+            } else if (segments.size() == 6 && "branches".equals(segments.get(3)) && "protection".equals(segments.get(5))) {
+                if ("GET".equals(method)) {
+                    return getBranchProtection(owner, name, segments.get(4));
+                } else if ("PUT".equals(method)) {
+                    return protectBranch(owner, name, segments.get(4), readJson(requestBody));
+                }
+            }
+        } else if (segments.size() == 2 && "user".equals(segments.get(0)) && "repos".equals(segments.get(1))) {
+            if ("GET".equals(method)) {
+                return listRepositories(login, "/user/repos", query);
+            } else if ("POST".equals(method)) {
+                return createRepository(login, "User", readJson(requestBody));
+            }
+        } else if (segments.size() == 3 && "orgs".equals(segments.get(0)) && "repos".equals(segments.get(2))) {
+            if ("GET".equals(method)) {
+                return listRepositories(segments.get(1), "/orgs/" + segments.get(1) + "/repos", query);
+            } else if ("POST".equals(method)) {
+                return createRepository(segments.get(1), "Organization", readJson(requestBody));
+            }
+        }
+        return Response.message(404, "Not Found");
+    }
+
+    private Response getRepositoryResponse(String owner, String name) {
+        SimulatedRepository repository = repositories.get(key(owner, name));
+        if (repository == null) {
+            return Response.message(404, "Not Found");
+        }
+        synchronized (repository) {
+            return Response.json(200, repository.toJson());
+        }
+    }
+
+    private Response createRepository(String owner, String ownerType, JsonNode body) {
+        String name = body.path("name").asText(null);
+        if (name == null || name.isEmpty()) {
+            return Response.message(422, "Repository creation failed.");
+        }
+
+        SimulatedRepository repository = new SimulatedRepository(nextId.getAndIncrement(), owner, name, ownerType);
+        synchronized (repository) {
+            repository.update(body);
+            if (repositories.putIfAbsent(key(owner, name), repository) != null) {
+                return Response.message(422, "Repository creation failed: name already exists on this account");
+            }
+            return Response.json(201, repository.toJson());
+        }
+    }
+
+    private Response updateRepository(String owner, String name, JsonNode body) {
+        SimulatedRepository repository = repositories.get(key(owner, name));
+        if (repository == null) {
+            return Response.message(404, "Not Found");
+        }
+        synchronized (repository) {
+            if (repository.archived && !body.path("archived").isBoolean()) {
+                return Response.message(403, "Repository was archived so is read-only.");
+            }
+            repository.update(body);
+            return Response.json(200, repository.toJson());
+        }
+    }
+
+    private Response deleteRepository(String owner, String name) {
+        if (repositories.remove(key(owner, name)) == null) {
+            return Response.message(404, "Not Found");
+        }
+        return new Response(204, null);
+    }
+
+    private Response replaceTopics(String owner, String name, JsonNode body) {
+        SimulatedRepository repository = repositories.get(key(owner, name));
+        if (repository == null) {
+            return Response.message(404, "Not Found");
+        }
+        synchronized (repository) {
+            if (repository.archived) {
+                return Response.message(403, "Repository was archived so is read-only.");
+            }
+            List<String> topics = new ArrayList<>();
+            body.path("names").forEach(topic -> topics.add(topic.asText().toLowerCase(Locale.ROOT)));
+            repository.topics = topics;
+
+            ObjectNode response = MAPPER.createObjectNode();
+            response.set("names", MAPPER.valueToTree(topics));
+            return Response.json(200, response);
+        }
+    }
+
+    private Response getBranchProtection(String owner, String name, String branch) {
+        SimulatedRepository repository = repositories.get(key(owner, name));
+        if (repository == null) {
+            return Response.message(404, "Not Found");
+        }
+        synchronized (repository) {
+            ObjectNode protection = repository.protections.get(branch);
+            if (protection == null) {
+                return Response.message(404, "Branch not protected");
+            }
+            return Response.json(200, protection);
+        }
+    }
+
+    private Response protectBranch(String owner, String name, String branch, JsonNode body) {
+        SimulatedRepository repository = repositories.get(key(owner, name));
+        if (repository == null) {
+            return Response.message(404, "Not Found");
+        }
+        synchronized (repository) {
+            if (repository.archived) {
+                return Response.message(403, "Repository was archived so is read-only.");
+            }
+            ObjectNode protection = MAPPER.createObjectNode();
+            if (body.path("required_status_checks").isObject()) {
+                protection.set("required_status_checks", body.get("required_status_checks"));
+            }
+            if (body.path("required_pull_request_reviews").isObject()) {
+                protection.set("required_pull_request_reviews", body.get("required_pull_request_reviews"));
+            }
+            protection.putObject("enforce_admins").put("enabled", body.path("enforce_admins").asBoolean());
+            protection.putObject("allow_force_pushes").put("enabled", body.path("allow_force_pushes").asBoolean());
+            protection.putObject("allow_deletions").put("enabled", body.path("allow_deletions").asBoolean());
+            JsonNode restrictions = body.path("restrictions");
+            if (restrictions.isObject()) {
+                ObjectNode restricted = protection.putObject("restrictions");
+                restricted.set("users", actorsOf(restrictions.path("users"), "login"));
+                restricted.set("teams", actorsOf(restrictions.path("teams"), "slug"));
+                restricted.set("apps", actorsOf(restrictions.path("apps"), "slug"));
+            }
+            repository.protections.put(branch, protection);
+            return Response.json(200, protection);
+        }
+    }
+
+    private static ArrayNode actorsOf(JsonNode names, String field) {
+        ArrayNode actors = MAPPER.createArrayNode();
+        names.forEach(name -> actors.addObject().put(field, name.asText()));
+        return actors;
+    }
+
+    private Response listRepositories(String owner, String path, Map<String, String> query) {
+        int perPage = Math.min(MAX_PAGE_SIZE, Math.max(1, parseInt(query.get("per_page"), DEFAULT_PAGE_SIZE)));
+        int page = Math.max(1, parseInt(query.get("page"), 1));
+
+        String prefix = owner.toLowerCase(Locale.ROOT) + "/";
+        Collection<SimulatedRepository> owned = repositories.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values();
+        int total = owned.size();
+        int lastPage = Math.max(1, (total + perPage - 1) / perPage);
+
+        ArrayNode body = MAPPER.createArrayNode();
+        int index = 0;
+        int from = (page - 1) * perPage;
+        for (SimulatedRepository repository : owned) {
+            if (index >= from + perPage) {
+                break;
+            }
+            if (index >= from) {
+                synchronized (repository) {
+                    body.add(repository.toJson());
+                }
+            }
+            index++;
+        }
+
+        Response response = Response.json(200, body);
+        List<String> links = new ArrayList<>();
+        if (page < lastPage) {
+            links.add(link(path, perPage, page + 1, "next"));
+            links.add(link(path, perPage, lastPage, "last"));
+        }
+        if (page > 1) {
+            links.add(link(path, perPage, 1, "first"));
+            links.add(link(path, perPage, page - 1, "prev"));
+        }
+        if (!links.isEmpty()) {
+            response.headers.put("Link", String.join(", ", links));
+        }
+        return response;
+    }
+
+    private String link(String path, int perPage, int page, String rel) {
+        return "<" + getBaseUrl() + path + "?per_page=" + perPage + "&page=" + page + ">; rel=\"" + rel + "\"";
+    }
+
+    private boolean isAuthorized(String authorization) {
+        return ("Bearer " + token).equals(authorization) || ("token " + token).equals(authorization);
+    }
+
+    private void refreshRateLimit() {
+        long now = System.currentTimeMillis();
+        if (now >= resetAtMillis) {
+            used = 0;
+            resetAtMillis = now + rateLimitWindow.toMillis();
+        }
+    }
+
+    private void addRateLimitHeaders(Response response) {
+        response.headers.put("X-RateLimit-Limit", String.valueOf(rateLimit));
+        response.headers.put("X-RateLimit-Remaining", String.valueOf(Math.max(0, rateLimit - used)));
+        response.headers.put("X-RateLimit-Used", String.valueOf(used));
+        response.headers.put("X-RateLimit-Reset", String.valueOf(TimeUnit.MILLISECONDS.toSeconds(resetAtMillis + 999)));
+        response.headers.put("X-RateLimit-Resource", "core");
+    }
+
+    private void delay() {
+        long delayNanos = latency.toNanos();
+        long jitterNanos = latencyJitter.toNanos();
+        if (jitterNanos > 0) {
+            delayNanos += (long) (nextDouble() * jitterNanos);
+        }
+        if (delayNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(delayNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private double nextDouble() {
+        synchronized (random) {
+            return random.nextDouble();
+        }
+    }
+
+    private static void send(HttpExchange exchange, Response response) throws IOException {
+        response.headers.forEach((name, value) -> exchange.getResponseHeaders().set(name, value));
+        if (response.body == null) {
+            exchange.sendResponseHeaders(response.status, -1);
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", JSON_CONTENT_TYPE);
+        exchange.sendResponseHeaders(response.status, response.body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(response.body);
+        }
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        try (in) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static JsonNode readJson(byte[] body) {
+        if (body.length == 0) {
+            return MAPPER.createObjectNode();
+        }
+        try {
+            return MAPPER.readTree(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to parse the request body", e);
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> query = new LinkedHashMap<>();
+        for (String parameter : rawQuery.split("&")) {
+            int equals = parameter.indexOf('=');
+            String name = equals < 0 ? parameter : parameter.substring(0, equals);
+            String value = equals < 0 ? "" : parameter.substring(equals + 1);
+            query.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return query;
+    }
+
+    private static int parseInt(String value, int defaultValue) {
+        try {
+            return value == null ? defaultValue : Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    private static String key(String owner, String name) {
+        return owner.toLowerCase(Locale.ROOT) + "/" + name.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * SimulatedRepository is the state of a single repository.  Access is guarded by the instance's monitor.
+     */
+    private static class SimulatedRepository {
+        private final long id;
+        private final String owner;
+        private final String ownerType;
+        private final String name;
+        private final ObjectNode settings = MAPPER.createObjectNode();
+        private final Map<String, ObjectNode> protections = new LinkedHashMap<>();
+        private List<String> topics = new ArrayList<>();
+        private boolean isPrivate;
+        private boolean archived;
+
+        private SimulatedRepository(long id, String owner, String name, String ownerType) {
+            this.id = id;
+            this.owner = owner;
+            this.name = name;
+            this.ownerType = ownerType;
+            settings.putNull("description");
+            settings.put("default_branch", "main");
+            settings.put("allow_merge_commit", true);
+            settings.put("allow_squash_merge", true);
+            settings.put("allow_rebase_merge", true);
+            settings.put("delete_branch_on_merge", false);
+        }
+
+        private void update(JsonNode body) {
+            for (String setting : UPDATABLE_SETTINGS) {
+                if (body.has(setting)) {
+                    settings.set(setting, body.get(setting));
+                }
+            }
+            if (body.path("private").isBoolean()) {
+                isPrivate = body.get("private").asBoolean();
+            }
+            if (body.path("visibility").isTextual()) {
+                isPrivate = !"public".equals(body.get("visibility").asText());
+            }
+            if (body.path("topics").isArray()) {
+                List<String> replaced = new ArrayList<>();
+                body.get("topics").forEach(topic -> replaced.add(topic.asText().toLowerCase(Locale.ROOT)));
+                topics = replaced;
+            }
+            archived = settings.path("archived").asBoolean();
+        }
+
+        private ObjectNode toJson() {
+            ObjectNode json = MAPPER.createObjectNode();
+            json.put("id", id);
+            json.put("name", name);
+            json.put("full_name", owner + "/" + name);
+            ObjectNode ownerJson = json.putObject("owner");
+            ownerJson.put("login", owner);
+            ownerJson.put("type", ownerType);
+            json.put("private", isPrivate);
+            json.put("visibility", isPrivate ? "private" : "public");
+            json.setAll(settings);
+            json.put("archived", archived);
+            json.set("topics", MAPPER.valueToTree(topics));
+            return json;
+        }
+    }
+
+    /**
+     * Response is a response to send to the client.
+     */
+    private static class Response {
+        private final int status;
+        private final byte[] body;
+        private final Map<String, String> headers = new LinkedHashMap<>();
+
+        private Response(int status, byte[] body) {
+            this.status = status;
+            this.body = body;
+        }
+
+        private static Response json(int status, JsonNode json) {
+            try {
+                return new Response(status, MAPPER.writeValueAsBytes(json));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to write the response body", e);
+            }
+        }
+
+        private static Response message(int status, String message) {
+            ObjectNode json = MAPPER.createObjectNode();
+            json.put("message", message);
+            json.put("documentation_url", "https://docs.github.com/rest");
+            return json(status, json);
+        }
+    }
+}